@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.benchmarks;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.impl.HttpServerRequestInternal;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Base class of the benchmarks, a single in-process Vert.x instance is shared by all invocations.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1G", "-Xmx1G"})
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public abstract class BenchmarkBase {
+
+  protected Vertx vertx;
+
+  @Setup
+  public void doSetup() throws Exception {
+    vertx = Vertx.vertx();
+    setUp();
+  }
+
+  @TearDown
+  public void doTearDown() throws Exception {
+    tearDown();
+    vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  protected void setUp() throws Exception {
+  }
+
+  protected void tearDown() throws Exception {
+  }
+
+  /**
+   * Creates a mocked request, mocks do not record invocations so they can be reused across benchmark invocations.
+   */
+  protected static HttpServerRequest request(HttpMethod method, String uri, MultiMap headers) {
+    final HttpServerRequestInternal request = mock(HttpServerRequestInternal.class, withSettings().stubOnly().defaultAnswer(RETURNS_SELF));
+    final HttpServerResponse response = mock(HttpServerResponse.class, withSettings().stubOnly().defaultAnswer(RETURNS_SELF));
+    final MultiMap params = MultiMap.caseInsensitiveMultiMap();
+    final int query = uri.indexOf('?');
+
+    when(request.method()).thenReturn(method);
+    when(request.scheme()).thenReturn("http");
+    when(request.uri()).thenReturn(uri);
+    when(request.path()).thenReturn(query == -1 ? uri : uri.substring(0, query));
+    when(request.query()).thenReturn(query == -1 ? null : uri.substring(query + 1));
+    when(request.absoluteURI()).thenReturn("http://localhost" + uri);
+    when(request.host()).thenReturn("localhost");
+    when(request.headers()).thenReturn(headers);
+    when(request.getHeader(anyString())).thenAnswer(invocation -> headers.get((String) invocation.getArgument(0)));
+    when(request.getHeader(any(CharSequence.class))).thenAnswer(invocation -> headers.get((CharSequence) invocation.getArgument(0)));
+    when(request.params()).thenReturn(params);
+    when(request.response()).thenReturn(response);
+
+    when(response.headers()).thenReturn(MultiMap.caseInsensitiveMultiMap());
+    when(response.ended()).thenReturn(false);
+    when(response.closed()).thenReturn(false);
+    return request;
+  }
+}
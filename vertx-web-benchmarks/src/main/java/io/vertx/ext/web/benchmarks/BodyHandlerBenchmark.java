@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.benchmarks;
+
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the buffering of request bodies by {@link BodyHandler}, the body is delivered in chunks like the HTTP
+ * server does.
+ */
+public class BodyHandlerBenchmark extends BenchmarkBase {
+
+  private static final int CHUNK_SIZE = 8192;
+
+  @Param({"1024", "65536", "1048576"})
+  public int size;
+
+  @Param({"true", "false"})
+  public boolean preallocate;
+
+  private Router router;
+  private HttpServerRequest request;
+  private Buffer chunk;
+  private Blackhole blackhole;
+
+  private Handler<Buffer> dataHandler;
+  private Handler<Void> endHandler;
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void setUp() {
+    router = Router.router(vertx);
+    router.post("/ingest")
+      .handler(BodyHandler.create(false).setBodyLimit(-1).setPreallocateBodyBuffer(preallocate))
+      .handler(rc -> blackhole.consume(rc.getBody()));
+
+    MultiMap headers = MultiMap.caseInsensitiveMultiMap()
+      .add(HttpHeaders.CONTENT_TYPE, "application/json")
+      .add(HttpHeaders.CONTENT_LENGTH, Integer.toString(size));
+
+    request = request(HttpMethod.POST, "/ingest", headers);
+    when(request.handler(any())).thenAnswer(invocation -> {
+      dataHandler = invocation.getArgument(0);
+      return request;
+    });
+    when(request.endHandler(any())).thenAnswer(invocation -> {
+      endHandler = invocation.getArgument(0);
+      return request;
+    });
+
+    chunk = Buffer.buffer(new byte[Math.min(size, CHUNK_SIZE)]);
+  }
+
+  @Benchmark
+  public void buffer(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    router.handle(request);
+    for (int sent = 0; sent < size; sent += chunk.length()) {
+      dataHandler.handle(chunk);
+    }
+    endHandler.handle(null);
+  }
+}
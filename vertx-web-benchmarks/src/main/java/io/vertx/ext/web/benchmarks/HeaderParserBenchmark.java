@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.benchmarks;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.impl.HeaderParser;
+import io.vertx.ext.web.impl.ParsableHeaderValue;
+import io.vertx.ext.web.impl.ParsableHeaderValuesContainer;
+import io.vertx.ext.web.impl.ParsableLanguageValue;
+import io.vertx.ext.web.impl.ParsableMIMEValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the parsing and sorting of the content negotiation headers, using values sent by common browsers, and
+ * the cost of the same headers once they are cached by the routing context.
+ */
+public class HeaderParserBenchmark extends BenchmarkBase {
+
+  private static final String ACCEPT = "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8";
+  private static final String ACCEPT_ENCODING = "gzip, deflate, br";
+  private static final String ACCEPT_LANGUAGE = "en-US,en;q=0.9,pt;q=0.8,nl;q=0.7";
+
+  private HttpServerRequest request;
+
+  @Override
+  protected void setUp() {
+    MultiMap headers = MultiMap.caseInsensitiveMultiMap()
+      .add(HttpHeaders.ACCEPT, ACCEPT)
+      .add(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING)
+      .add(HttpHeaders.ACCEPT_LANGUAGE, ACCEPT_LANGUAGE);
+    request = request(HttpMethod.GET, "/", headers);
+  }
+
+  @Benchmark
+  public void accept(Blackhole blackhole) {
+    blackhole.consume(HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(ACCEPT, ParsableMIMEValue::new)));
+  }
+
+  @Benchmark
+  public void acceptEncoding(Blackhole blackhole) {
+    blackhole.consume(HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(ACCEPT_ENCODING, ParsableHeaderValue::new)));
+  }
+
+  @Benchmark
+  public void acceptLanguage(Blackhole blackhole) {
+    blackhole.consume(HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(ACCEPT_LANGUAGE, ParsableLanguageValue::new)));
+  }
+
+  @Benchmark
+  public void parsedHeaders(Blackhole blackhole) {
+    ParsableHeaderValuesContainer parsedHeaders = new ParsableHeaderValuesContainer(request);
+    blackhole.consume(parsedHeaders.accept());
+    blackhole.consume(parsedHeaders.acceptEncoding());
+    blackhole.consume(parsedHeaders.acceptLanguage());
+  }
+}
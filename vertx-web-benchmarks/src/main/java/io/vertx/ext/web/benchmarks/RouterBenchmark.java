@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.benchmarks;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@code RouterImpl#handle} and the route matching for routers of increasing size. The matching route is
+ * always the last one declared so that the whole router has to be considered.
+ */
+public class RouterBenchmark extends BenchmarkBase {
+
+  @Param({"10", "100", "1000"})
+  public int routes;
+
+  private Router router;
+  private Blackhole blackhole;
+
+  private HttpServerRequest exact;
+  private HttpServerRequest params;
+  private HttpServerRequest notFound;
+  private HttpServerRequest methodNotAllowed;
+
+  @Override
+  protected void setUp() {
+    router = Router.router(vertx);
+
+    for (int i = 0; i < routes - 2; i++) {
+      router.get("/api/resource" + i).handler(rc -> blackhole.consume(rc.response().end()));
+    }
+    router.get("/api/users/:id/orders/:orderId")
+      .handler(rc -> blackhole.consume(rc.pathParam("orderId")));
+    router.get("/api/last").handler(rc -> blackhole.consume(rc.response().end()));
+
+    exact = request(HttpMethod.GET, "/api/last", MultiMap.caseInsensitiveMultiMap());
+    params = request(HttpMethod.GET, "/api/users/123/orders/456", MultiMap.caseInsensitiveMultiMap());
+    notFound = request(HttpMethod.GET, "/api/missing", MultiMap.caseInsensitiveMultiMap());
+    methodNotAllowed = request(HttpMethod.POST, "/api/last", MultiMap.caseInsensitiveMultiMap());
+  }
+
+  @Benchmark
+  public void exactPath(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    router.handle(exact);
+  }
+
+  @Benchmark
+  public void pathParams(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    router.handle(params);
+  }
+
+  @Benchmark
+  public void notFound(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    router.handle(notFound);
+  }
+
+  @Benchmark
+  public void methodNotAllowed(Blackhole blackhole) {
+    this.blackhole = blackhole;
+    router.handle(methodNotAllowed);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.benchmarks;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.LocalSessionStore;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures loading and storing sessions, both through the local session store and through the serialization used
+ * by the clustered and remote stores.
+ */
+public class SessionStoreBenchmark extends BenchmarkBase {
+
+  @Param({"4", "64"})
+  public int entries;
+
+  private LocalSessionStore store;
+  private Session session;
+  private Buffer serialized;
+
+  @Override
+  protected void setUp() {
+    store = LocalSessionStore.create(vertx);
+    session = store.createSession(30 * 60 * 1000);
+
+    for (int i = 0; i < entries; i++) {
+      switch (i % 4) {
+        case 0:
+          session.put("string" + i, "value-" + i);
+          break;
+        case 1:
+          session.put("long" + i, (long) i);
+          break;
+        case 2:
+          session.put("flag" + i, i % 3 == 0);
+          break;
+        default:
+          session.put("json" + i, new JsonObject().put("id", i).put("name", "item-" + i));
+          break;
+      }
+    }
+
+    store.put(session, ar -> {
+      if (ar.failed()) {
+        throw new IllegalStateException(ar.cause());
+      }
+    });
+
+    serialized = Buffer.buffer();
+    ((SharedDataSessionImpl) session).writeToBuffer(serialized);
+  }
+
+  @Override
+  protected void tearDown() {
+    store.close();
+  }
+
+  @Benchmark
+  public void load(Blackhole blackhole) {
+    store.get(session.id(), ar -> blackhole.consume(ar.result()));
+  }
+
+  @Benchmark
+  public void store(Blackhole blackhole) {
+    store.put(session, blackhole::consume);
+  }
+
+  @Benchmark
+  public void serialize(Blackhole blackhole) {
+    Buffer buffer = Buffer.buffer();
+    ((SharedDataSessionImpl) session).writeToBuffer(buffer);
+    blackhole.consume(buffer);
+  }
+
+  @Benchmark
+  public void deserialize(Blackhole blackhole) {
+    SharedDataSessionImpl copy = new SharedDataSessionImpl();
+    copy.readFromBuffer(0, serialized);
+    blackhole.consume(copy);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.benchmarks;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.FileSystemAccess;
+import io.vertx.ext.web.handler.StaticHandler;
+import io.vertx.ext.web.impl.ConcurrentLRUCache;
+import io.vertx.ext.web.impl.LRUCache;
+import io.vertx.ext.web.impl.TinyLFUCache;
+import io.vertx.ext.web.impl.Utils;
+import org.mockito.ArgumentMatchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the static handler paths that are served from the file properties cache, and the caches themselves.
+ */
+public class StaticHandlerBenchmark extends BenchmarkBase {
+
+  private static final int CACHE_SIZE = 1024;
+
+  private Path webRoot;
+  private Router router;
+  private HttpServerRequest revalidate;
+
+  private Map<String, Object> lruCache;
+  private Map<String, Object> concurrentLruCache;
+  private TinyLFUCache<String, Object> tinyLfuCache;
+  private String[] keys;
+  private int next;
+
+  @Override
+  protected void setUp() throws Exception {
+    webRoot = Files.createTempDirectory("vertx-web-benchmarks");
+    Files.write(webRoot.resolve("index.html"), "<html><body>Hello</body></html>".getBytes(StandardCharsets.UTF_8));
+
+    router = Router.router(vertx);
+    router.route().handler(StaticHandler.create(FileSystemAccess.ROOT, webRoot.toString()).setFilesReadOnly(true));
+
+    // the first request populates the file properties cache
+    final CountDownLatch latch = new CountDownLatch(1);
+    final HttpServerRequest warmup = request(HttpMethod.GET, "/index.html", MultiMap.caseInsensitiveMultiMap());
+    when(warmup.response().sendFile(anyString(), ArgumentMatchers.<Handler<AsyncResult<Void>>>any())).thenAnswer(invocation -> {
+      latch.countDown();
+      return warmup.response();
+    });
+    router.handle(warmup);
+    if (!latch.await(10, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Static handler did not serve the file");
+    }
+
+    revalidate = request(
+      HttpMethod.GET,
+      "/index.html",
+      MultiMap.caseInsensitiveMultiMap().add(HttpHeaders.IF_MODIFIED_SINCE, Utils.formatRFC1123DateTime(System.currentTimeMillis() + 60_000)));
+
+    lruCache = new LRUCache<>(CACHE_SIZE);
+    concurrentLruCache = new ConcurrentLRUCache<>(CACHE_SIZE);
+    tinyLfuCache = new TinyLFUCache<>(CACHE_SIZE);
+    keys = new String[CACHE_SIZE * 2];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = "/static/asset" + i + ".js";
+      if (i < CACHE_SIZE) {
+        lruCache.put(keys[i], i);
+        concurrentLruCache.put(keys[i], i);
+        tinyLfuCache.put(keys[i], i);
+      }
+    }
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    Files.walk(webRoot)
+      .map(Path::toFile)
+      .sorted((a, b) -> b.compareTo(a))
+      .forEach(File::delete);
+  }
+
+  @Benchmark
+  public void notModified() {
+    router.handle(revalidate);
+  }
+
+  @Benchmark
+  public void lruCache(Blackhole blackhole) {
+    String key = keys[next++ & (CACHE_SIZE - 1)];
+    blackhole.consume(lruCache.get(key));
+  }
+
+  @Benchmark
+  public void concurrentLruCache(Blackhole blackhole) {
+    String key = keys[next++ & (CACHE_SIZE - 1)];
+    blackhole.consume(concurrentLruCache.get(key));
+  }
+
+  @Benchmark
+  public void concurrentLruCacheChurn(Blackhole blackhole) {
+    String key = keys[(next++ & Integer.MAX_VALUE) % keys.length];
+    blackhole.consume(concurrentLruCache.put(key, key));
+  }
+
+  @Benchmark
+  public void tinyLfuCache(Blackhole blackhole) {
+    String key = keys[next++ & (CACHE_SIZE - 1)];
+    blackhole.consume(tinyLfuCache.get(key));
+  }
+
+  @Benchmark
+  public void tinyLfuCacheChurn() {
+    String key = keys[(next++ & Integer.MAX_VALUE) % keys.length];
+    tinyLfuCache.put(key, key);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.benchmarks;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.impl.NoStackTraceThrowable;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientSession;
+import io.vertx.ext.web.client.impl.ClientPhase;
+import io.vertx.ext.web.client.impl.WebClientInternal;
+import io.vertx.ext.web.client.predicate.ResponsePredicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the building of web client requests and the traversal of the interceptor chain. The chain is aborted
+ * before the request is created so no connection is ever opened.
+ */
+public class WebClientBenchmark extends BenchmarkBase {
+
+  private static final Throwable ABORT = new NoStackTraceThrowable("abort");
+
+  private WebClient client;
+  private HttpRequest<Buffer> template;
+
+  @Override
+  protected void setUp() {
+    client = WebClient.create(vertx);
+    template = newRequest(client);
+
+    // the session interceptor adds the cookie handling to the default predicate interceptor
+    WebClientSession session = WebClientSession.create(client);
+    ((WebClientInternal) session).addInterceptor(ctx -> {
+      if (ctx.phase() == ClientPhase.PREPARE_REQUEST) {
+        ctx.fail(ABORT);
+      } else {
+        ctx.next();
+      }
+    });
+    client = session;
+  }
+
+  @Override
+  protected void tearDown() {
+    client.close();
+  }
+
+  private static HttpRequest<Buffer> newRequest(WebClient client) {
+    return client.get(8080, "localhost", "/api/items")
+      .addQueryParam("page", "1")
+      .addQueryParam("size", "50")
+      .addQueryParam("sort", "name")
+      .putHeader("Accept", "application/json")
+      .putHeader("X-Request-Id", "0f8fad5b-d9cb-469f-a165-70867728950e")
+      .expect(ResponsePredicate.SC_OK);
+  }
+
+  @Benchmark
+  public void build(Blackhole blackhole) {
+    blackhole.consume(newRequest(client));
+  }
+
+  @Benchmark
+  public void copy(Blackhole blackhole) {
+    blackhole.consume(template.copy());
+  }
+
+  @Benchmark
+  public void interceptorChain(Blackhole blackhole) {
+    newRequest(client).send(ar -> blackhole.consume(ar.cause()));
+  }
+}
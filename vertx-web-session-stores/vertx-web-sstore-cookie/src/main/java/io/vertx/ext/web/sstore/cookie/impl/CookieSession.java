@@ -19,9 +19,13 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.auth.VertxContextPRNG;
 import io.vertx.ext.web.sstore.AbstractSession;
+import io.vertx.ext.web.sstore.SessionCodec;
 
 import javax.crypto.Mac;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.vertx.ext.auth.impl.Codec.base64UrlDecode;
 import static io.vertx.ext.auth.impl.Codec.base64UrlEncode;
@@ -31,6 +35,9 @@ import static io.vertx.ext.auth.impl.Codec.base64UrlEncode;
  */
 public class CookieSession extends AbstractSession {
 
+  // first byte of the binary payload, the JSON payload starts with '{'
+  private static final byte BINARY = 1;
+
   private final Mac mac;
   // track the original version
   private int oldVersion = 0;
@@ -50,13 +57,27 @@ public class CookieSession extends AbstractSession {
   @Override
   public String value() {
 
-    Buffer payload = new JsonObject()
-      .put("id", id())
-      .put("timeout", timeout())
-      .put("lastAccessed", lastAccessed())
-      .put("version", version())
-      .put("data", data())
-      .toBuffer();
+    final Map<String, Object> data = isEmpty() ? Collections.<String, Object>emptyMap() : data();
+    final Buffer payload;
+    if (canEncode(data)) {
+      byte[] id = id().getBytes(StandardCharsets.UTF_8);
+      payload = Buffer.buffer()
+        .appendByte(BINARY)
+        .appendInt(id.length).appendBytes(id)
+        .appendLong(timeout())
+        .appendLong(lastAccessed())
+        .appendInt(version());
+      SessionCodec.CODEC.encode(data, payload);
+    } else {
+      // values the codec cannot encode, e.g. lists or maps, are still stored as JSON
+      payload = new JsonObject()
+        .put("id", id())
+        .put("timeout", timeout())
+        .put("lastAccessed", lastAccessed())
+        .put("version", version())
+        .put("data", data)
+        .toBuffer();
+    }
 
     String b64 = base64UrlEncode(payload.getBytes());
     String signature = base64UrlEncode(mac.doFinal(b64.getBytes(StandardCharsets.US_ASCII)));
@@ -64,6 +85,15 @@ public class CookieSession extends AbstractSession {
     return b64 + "." + signature;
   }
 
+  private static boolean canEncode(Map<String, Object> data) {
+    for (Object value : data.values()) {
+      if (!SessionCodec.CODEC.canEncode(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public boolean isRegenerated() {
     if (!super.isRegenerated()) {
@@ -95,13 +125,32 @@ public class CookieSession extends AbstractSession {
     }
 
     // reconstruct the session
-    JsonObject decoded = new JsonObject(Buffer.buffer(base64UrlDecode(tokens[0])));
-
-    setId(decoded.getString("id"));
-    setTimeout(decoded.getLong("timeout"));
-    setLastAccessed(decoded.getLong("lastAccessed"));
-    setVersion(decoded.getInteger("version"));
-    setData(decoded.getJsonObject("data"));
+    Buffer decoded = Buffer.buffer(base64UrlDecode(tokens[0]));
+
+    if (decoded.length() > 0 && decoded.getByte(0) == BINARY) {
+      int pos = 1;
+      int len = decoded.getInt(pos);
+      pos += 4;
+      setId(decoded.getString(pos, pos + len, "UTF-8"));
+      pos += len;
+      setTimeout(decoded.getLong(pos));
+      pos += 8;
+      setLastAccessed(decoded.getLong(pos));
+      pos += 8;
+      setVersion(decoded.getInt(pos));
+      pos += 4;
+      final Map<String, Object> data = new ConcurrentHashMap<>();
+      SessionCodec.CODEC.decode(pos, decoded, data);
+      setData(data);
+    } else {
+      JsonObject json = new JsonObject(decoded);
+
+      setId(json.getString("id"));
+      setTimeout(json.getLong("timeout"));
+      setLastAccessed(json.getLong("lastAccessed"));
+      setVersion(json.getInteger("version"));
+      setData(json.getJsonObject("data"));
+    }
 
     // defaults
     oldVersion = version();
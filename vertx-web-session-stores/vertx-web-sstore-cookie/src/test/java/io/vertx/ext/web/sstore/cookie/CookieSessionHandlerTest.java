@@ -16,13 +16,21 @@
 
 package io.vertx.ext.web.sstore.cookie;
 
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.impl.Codec;
 import io.vertx.ext.web.Session;
 import io.vertx.ext.web.handler.SessionHandler;
 import io.vertx.ext.web.handler.SessionHandlerTestBase;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -65,6 +73,78 @@ public class CookieSessionHandlerTest extends SessionHandlerTestBase {
     await();
   }
 
+  @Test
+  public void testBinaryRoundTrip() {
+    Session session = store.createSession(30_000);
+    session.put("string", "bar");
+    session.put("int", 42);
+    session.put("buffer", Buffer.buffer("buffer"));
+    session.put("json", new JsonObject().put("foo", "bar"));
+    String cookieValue = session.value();
+
+    // the binary payload starts with a 1 byte, the JSON one with '{'
+    assertEquals(1, Codec.base64UrlDecode(cookieValue.substring(0, cookieValue.indexOf('.')))[0]);
+
+    store.get(cookieValue, onSuccess(get -> {
+      assertEquals(session.id(), get.id());
+      assertEquals(30_000, get.timeout());
+      assertEquals("bar", get.get("string"));
+      assertEquals(42, (int) get.get("int"));
+      assertEquals(Buffer.buffer("buffer"), get.get("buffer"));
+      assertEquals(new JsonObject().put("foo", "bar"), get.get("json"));
+      testComplete();
+    }));
+
+    await();
+  }
+
+  @Test
+  public void testReadLegacyJsonCookie() throws Exception {
+    long now = System.currentTimeMillis();
+    Buffer payload = new JsonObject()
+      .put("id", "legacy")
+      .put("timeout", 30_000)
+      .put("lastAccessed", now)
+      .put("version", 3)
+      .put("data", new JsonObject().put("foo", "bar"))
+      .toBuffer();
+
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec("KeyboardCat!".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+    String b64 = Codec.base64UrlEncode(payload.getBytes());
+    String cookieValue = b64 + "." + Codec.base64UrlEncode(mac.doFinal(b64.getBytes(StandardCharsets.US_ASCII)));
+
+    store.get(cookieValue, onSuccess(get -> {
+      assertEquals("legacy", get.id());
+      assertEquals(30_000, get.timeout());
+      assertEquals(now, get.lastAccessed());
+      assertEquals("bar", get.get("foo"));
+      testComplete();
+    }));
+
+    await();
+  }
+
+  @Test
+  public void testJsonFallback() {
+    Session session = store.createSession(30_000);
+    session.put("list", Arrays.asList("a", "b"));
+    session.put("map", Collections.singletonMap("foo", "bar"));
+    String cookieValue = session.value();
+
+    // values the codec cannot encode are written as JSON
+    assertEquals('{', Codec.base64UrlDecode(cookieValue.substring(0, cookieValue.indexOf('.')))[0]);
+
+    store.get(cookieValue, onSuccess(get -> {
+      assertEquals(session.id(), get.id());
+      assertEquals(Arrays.asList("a", "b"), get.get("list"));
+      assertEquals(Collections.singletonMap("foo", "bar"), get.get("map"));
+      testComplete();
+    }));
+
+    await();
+  }
+
   /**
    * This test overrides the original as at the end there is no way to guarantee that the session cannot be
    * reused as Cookies do not preserve state across clients
@@ -17,14 +17,16 @@ package io.vertx.ext.web.sstore.redis;
 
 import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.sstore.SessionStore;
 import io.vertx.ext.web.sstore.redis.impl.RedisSessionStoreImpl;
 import io.vertx.redis.client.Redis;
 
 /**
  * A SessionStore that uses a Redis to store the sessions and associated data.
- * This assumes that the redis logical database (i.e. select) is only used
- * to store the sessions to make size query reliable.
+ * Without a key prefix this assumes that the redis logical database (i.e. select)
+ * is only used to store the sessions to make size query reliable and clear safe.
+ * With a key prefix the sessions can share the database with other data.
  *
  * @author <a href="https://github.com/llfbandit">Rémy Noël</a>
  */
@@ -56,4 +58,28 @@ public interface RedisSessionStore extends SessionStore {
     store.init(vertx, retryTimeoutMs, redis);
     return store;
   }
+
+  /**
+   * Creates a RedisSessionStore with the given options:
+   *
+   * <ul>
+   *   <li>{@code retryTimeout}: the time between two consecutive tries, in milliseconds</li>
+   *   <li>{@code hash}: {@code true} to store each session as a Redis hash with one field per key of the session
+   *   data, so only the keys which changed are written back instead of the whole session. Sessions stored with and
+   *   without this option are not compatible with each other.</li>
+   *   <li>{@code keyPrefix}: the prefix of the keys of the sessions. With a prefix, {@link #size()} and
+   *   {@link #clear()} iterate over the keys with this prefix using {@code SCAN} instead of operating on the whole
+   *   database, clear removes the keys with {@code UNLINK} a batch at a time.</li>
+   * </ul>
+   *
+   * @param vertx   a Vert.x instance
+   * @param redis   A Redis client
+   * @param options the store options
+   * @return the store
+   */
+  static RedisSessionStore create(Vertx vertx, Redis redis, JsonObject options) {
+    RedisSessionStoreImpl store = new RedisSessionStoreImpl();
+    store.init(vertx, redis, options);
+    return store;
+  }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.redis.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.auth.VertxContextPRNG;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.SessionCodec;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import io.vertx.redis.client.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A session stored as a Redis hash: one field holds the timeout, last access time and version of the session, every
+ * other field holds a single value of the session data. Only the fields which changed since the session was read are
+ * written back.
+ */
+public class RedisHashSession extends SharedDataSessionImpl {
+
+  static final String META = "meta";
+  // prefix of the fields of the data, so a key of the data never clashes with the meta field
+  static final String DATA = "data:";
+
+  // the id the stored fields belong to, null when nothing was stored yet
+  private String storedId;
+  // the hash codes of the values as stored
+  private Map<String, Integer> stored = Collections.emptyMap();
+  // keys explicitly put or removed since the last write
+  private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+  public RedisHashSession(VertxContextPRNG random) {
+    super(random);
+  }
+
+  public RedisHashSession(VertxContextPRNG random, long timeout, int length) {
+    super(random, timeout, length);
+  }
+
+  @Override
+  public Session put(String key, Object obj) {
+    dirty.add(key);
+    return super.put(key, obj);
+  }
+
+  @Override
+  public <T> T remove(String key) {
+    dirty.add(key);
+    return super.remove(key);
+  }
+
+  /**
+   * Reads the session from the flat list of field names and values returned by {@code HGETALL}.
+   *
+   * @return {@code false} when the hash is not a session
+   */
+  boolean readFromHash(String id, Response hash) {
+    Buffer meta = null;
+    final Map<String, Object> data = new ConcurrentHashMap<>();
+    final Map<String, Integer> stored = new HashMap<>();
+
+    for (int i = 0; i + 1 < hash.size(); i += 2) {
+      final String field = hash.get(i).toString();
+      final Buffer value = hash.get(i + 1).toBuffer();
+      if (META.equals(field)) {
+        meta = value;
+      } else if (field.startsWith(DATA)) {
+        final String key = field.substring(DATA.length());
+        data.put(key, SessionCodec.CODEC.decodeValue(value));
+        stored.put(key, value.hashCode());
+      }
+    }
+
+    if (meta == null) {
+      return false;
+    }
+
+    setId(id);
+    setTimeout(meta.getLong(0));
+    setLastAccessed(meta.getLong(8));
+    setVersion(meta.getInt(16));
+    setData(data);
+    this.storedId = id;
+    this.stored = stored;
+    return true;
+  }
+
+  /**
+   * @return the content of the meta field
+   */
+  Buffer meta() {
+    return Buffer.buffer(20)
+      .appendLong(timeout())
+      .appendLong(lastAccessed())
+      .appendInt(version());
+  }
+
+  /**
+   * Computes the fields to write, the session is not considered stored until {@link #written(Write)} is called.
+   *
+   * @param all  {@code true} to write all the fields, e.g. when the stored session is gone
+   */
+  Write prepareWrite(boolean all) {
+    // a new or regenerated session is written as a whole
+    final boolean replace = all || !id().equals(storedId);
+    final Map<String, Buffer> values = new HashMap<>();
+    final Map<String, Integer> hashes = new HashMap<>();
+
+    if (!isEmpty()) {
+      for (Map.Entry<String, Object> entry : data().entrySet()) {
+        final String key = entry.getKey();
+        final Buffer value = SessionCodec.CODEC.encodeValue(entry.getValue());
+        final int hash = value.hashCode();
+        hashes.put(key, hash);
+        // values may also have been modified in place, e.g. a JsonObject, so the hashes are compared as well
+        final Integer old = stored.get(key);
+        if (replace || old == null || old != hash || dirty.contains(key)) {
+          values.put(key, value);
+        }
+      }
+    }
+
+    final List<String> removed = new ArrayList<>();
+    if (!replace) {
+      for (String key : stored.keySet()) {
+        if (!hashes.containsKey(key)) {
+          removed.add(key);
+        }
+      }
+    }
+
+    return new Write(replace, values, removed, hashes);
+  }
+
+  void written(Write write) {
+    storedId = id();
+    stored = write.hashes;
+    // the written keys and the keys no longer in the session are clean
+    dirty.removeIf(key -> write.values.containsKey(key) || !write.hashes.containsKey(key));
+  }
+
+  static final class Write {
+
+    final boolean replace;
+    final Map<String, Buffer> values;
+    final List<String> removed;
+    final Map<String, Integer> hashes;
+
+    private Write(boolean replace, Map<String, Buffer> values, List<String> removed, Map<String, Integer> hashes) {
+      this.replace = replace;
+      this.values = values;
+      this.removed = removed;
+      this.hashes = hashes;
+    }
+  }
+}
@@ -18,12 +18,12 @@ package io.vertx.ext.web.sstore.redis.impl;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.auth.VertxContextPRNG;
 import io.vertx.ext.web.Session;
-import io.vertx.ext.web.sstore.AbstractSession;
 import io.vertx.ext.web.sstore.SessionStore;
 import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
 import io.vertx.ext.web.sstore.redis.RedisSessionStore;
@@ -32,7 +32,12 @@ import io.vertx.redis.client.RedisOptions;
 import io.vertx.redis.client.Request;
 import io.vertx.redis.client.Response;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import static io.vertx.redis.client.Command.*;
 import static io.vertx.redis.client.Request.cmd;
@@ -41,9 +46,68 @@ import static io.vertx.redis.client.Request.cmd;
  * @author <a href="https://github.com/llfbandit">Rémy Noël</a>
  */
 public class RedisSessionStoreImpl implements RedisSessionStore {
+
+  // the session is serialized by SharedDataSessionImpl: id length (4), id, timeout (8), last accessed (8), version (4)
+  private static final Script GET_SESSION = new Script(
+    "local session = redis.call('GET', KEYS[1])\n" +
+    "if session then\n" +
+    "  local timeout = struct.unpack('>i8', session, struct.unpack('>i4', session) + 5)\n" +
+    "  redis.call('PEXPIRE', KEYS[1], string.format('%d', timeout))\n" +
+    "end\n" +
+    "return session");
+
+  // ARGV: expected version, session, expiration TO in ms
+  private static final Script PUT_SESSION = new Script(
+    "local session = redis.call('GET', KEYS[1])\n" +
+    "if session then\n" +
+    "  local version = struct.unpack('>i4', session, struct.unpack('>i4', session) + 21)\n" +
+    "  if version ~= tonumber(ARGV[1]) then\n" +
+    "    return 0\n" +
+    "  end\n" +
+    "end\n" +
+    "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])\n" +
+    "return 1");
+
+  // the meta field of a hash session holds: timeout (8), last accessed (8), version (4)
+  private static final Script GET_HASH_SESSION = new Script(
+    "local session = redis.call('HGETALL', KEYS[1])\n" +
+    "local meta = redis.call('HGET', KEYS[1], '" + RedisHashSession.META + "')\n" +
+    "if meta then\n" +
+    "  redis.call('PEXPIRE', KEYS[1], string.format('%d', struct.unpack('>i8', meta)))\n" +
+    "end\n" +
+    "return session");
+
+  // ARGV: expected version, expiration TO in ms, 1 to replace the whole hash, number of fields to set, the fields to
+  // set with their values, the fields to delete
+  // returns 2 when only the changed fields were sent but the session is gone, e.g. it expired after it was read
+  private static final Script PUT_HASH_SESSION = new Script(
+    "local meta = redis.call('HGET', KEYS[1], '" + RedisHashSession.META + "')\n" +
+    "if meta then\n" +
+    "  if struct.unpack('>i4', meta, 17) ~= tonumber(ARGV[1]) then\n" +
+    "    return 0\n" +
+    "  end\n" +
+    "elseif ARGV[3] ~= '1' then\n" +
+    "  return 2\n" +
+    "end\n" +
+    "if ARGV[3] == '1' then\n" +
+    "  redis.call('DEL', KEYS[1])\n" +
+    "end\n" +
+    "local removed = 5 + 2 * tonumber(ARGV[4])\n" +
+    "redis.call('HSET', KEYS[1], unpack(ARGV, 5, removed - 1))\n" +
+    "if #ARGV >= removed then\n" +
+    "  redis.call('HDEL', KEYS[1], unpack(ARGV, removed))\n" +
+    "end\n" +
+    "redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+    "return 1");
+
+  // keys returned by a single SCAN call, it is a hint for the server
+  private static final int SCAN_COUNT = 1000;
+
   private Redis redis;
   private VertxContextPRNG random;
   private long retryTimeout;
+  private boolean hash;
+  private String keyPrefix;
 
   public RedisSessionStoreImpl() {
     // required for the service loader
@@ -52,14 +116,19 @@ public class RedisSessionStoreImpl implements RedisSessionStore {
   @Override
   public SessionStore init(Vertx vertx, JsonObject options) {
     Objects.requireNonNull(options, "options are required");
-    long timeout = options.getLong("retryTimeout", RedisSessionStore.DEFAULT_RETRY_TIMEOUT_MS);
     Redis redis = Redis.createClient(vertx, new RedisOptions(options));
-    return init(vertx, timeout, redis);
+    return init(vertx, redis, options);
   }
 
   public SessionStore init(Vertx vertx, long retryTimeout, Redis redis) {
+    return init(vertx, redis, new JsonObject().put("retryTimeout", retryTimeout));
+  }
+
+  public SessionStore init(Vertx vertx, Redis redis, JsonObject options) {
     random = VertxContextPRNG.current(vertx);
-    this.retryTimeout = retryTimeout;
+    this.retryTimeout = options.getLong("retryTimeout", RedisSessionStore.DEFAULT_RETRY_TIMEOUT_MS);
+    this.hash = options.getBoolean("hash", false);
+    this.keyPrefix = options.getString("keyPrefix", "");
     this.redis = Objects.requireNonNull(redis, "redis is required");
     return this;
   }
@@ -76,38 +145,39 @@ public class RedisSessionStoreImpl implements RedisSessionStore {
 
   @Override
   public Session createSession(long timeout, int length) {
+    if (hash) {
+      return new RedisHashSession(random, timeout, length);
+    }
     return new SharedDataSessionImpl(random, timeout, length);
   }
 
   @Override
   public void get(String id, Handler<AsyncResult<Session>> resultHandler) {
-    redis.send(cmd(GET).arg(id), resGet -> {
-        if (resGet.failed()) {
-          resultHandler.handle(Future.failedFuture(resGet.cause()));
-          return;
-        }
+    if (hash) {
+      getHash(id, resultHandler);
+      return;
+    }
+    // read and postpone the expiration time in a single round trip
+    eval(GET_SESSION, cmd -> cmd.arg(key(id)), resGet -> {
+      if (resGet.failed()) {
+        resultHandler.handle(Future.failedFuture(resGet.cause()));
+        return;
+      }
 
-        Response response = resGet.result();
-        if (response != null) {
-          SharedDataSessionImpl session = new SharedDataSessionImpl(random);
-          session.readFromBuffer(0, response.toBuffer());
-          // postpone expiration time, this cannot be done in a single frame with GET cmd
-          redis.send(cmd(PEXPIRE).arg(id).arg(session.timeout()), resExpire -> {
-            if (resExpire.failed()) {
-              resultHandler.handle(Future.failedFuture(resExpire.cause()));
-            } else {
-              resultHandler.handle(Future.succeededFuture(session));
-            }
-          });
-        } else {
-          resultHandler.handle(Future.succeededFuture());
-        }
-      });
+      Response response = resGet.result();
+      if (response != null) {
+        SharedDataSessionImpl session = new SharedDataSessionImpl(random);
+        session.readFromBuffer(0, response.toBuffer());
+        resultHandler.handle(Future.succeededFuture(session));
+      } else {
+        resultHandler.handle(Future.succeededFuture());
+      }
+    });
   }
 
   @Override
   public void delete(String id, Handler<AsyncResult<Void>> resultHandler) {
-    redis.send(cmd(DEL).arg(id), res -> {
+    redis.send(cmd(DEL).arg(key(id)), res -> {
       if (res.failed()) {
         resultHandler.handle(Future.failedFuture(res.cause()));
       } else {
@@ -118,80 +188,240 @@ public class RedisSessionStoreImpl implements RedisSessionStore {
 
   @Override
   public void put(Session session, Handler<AsyncResult<Void>> resultHandler) {
-    redis.send(cmd(GET).arg(session.id()), res -> {
+    if (hash) {
+      putHash((RedisHashSession) session, resultHandler);
+      return;
+    }
+
+    SharedDataSessionImpl sessionImpl = (SharedDataSessionImpl) session;
+    // the stored session must still have the version this one was read with
+    int version = sessionImpl.version();
+    // the session is written with the next version, which is only kept when the write succeeds
+    Runnable rollback = sessionImpl.incrementVersionForWrite();
+
+    Buffer buffer = Buffer.buffer();
+    sessionImpl.writeToBuffer(buffer);
+
+    // the version check, the write & the expiration TO in ms are atomic
+    eval(PUT_SESSION, cmd -> cmd
+        .arg(key(session.id()))
+        .arg(version)
+        .arg(buffer)
+        .arg(session.timeout()),
+      res -> {
         if (res.failed()) {
+          rollback.run();
           resultHandler.handle(Future.failedFuture(res.cause()));
           return;
         }
-
-        AbstractSession newSession = (AbstractSession) session;
-        Response response = res.result();
-        if (response != null) {
-          // Old session exists, we need to validate versions
-          SharedDataSessionImpl oldSession = new SharedDataSessionImpl(random);
-          oldSession.readFromBuffer(0, response.toBuffer());
-
-          if (oldSession.version() != newSession.version()) {
-            resultHandler.handle(Future.failedFuture("Session version mismatch"));
-            return;
-          }
+        if (res.result() == null || res.result().toInteger() != 1) {
+          rollback.run();
+          resultHandler.handle(Future.failedFuture("Session version mismatch"));
+          return;
         }
-
-        newSession.incrementVersion();
-        writeSession(newSession, resultHandler);
+        resultHandler.handle(Future.succeededFuture());
       });
   }
 
-  private void writeSession(Session session, Handler<AsyncResult<Void>> resultHandler) {
-    Buffer buffer = Buffer.buffer();
-    SharedDataSessionImpl sessionImpl = (SharedDataSessionImpl) session;
-    sessionImpl.writeToBuffer(buffer);
-
-    // submit with all session data & expiration TO in ms
-    Request rq = cmd(SET)
-      .arg(session.id()).arg(buffer)
-      .arg("PX").arg(session.timeout());
+  private void getHash(String id, Handler<AsyncResult<Session>> resultHandler) {
+    eval(GET_HASH_SESSION, cmd -> cmd.arg(key(id)), resGet -> {
+      if (resGet.failed()) {
+        resultHandler.handle(Future.failedFuture(resGet.cause()));
+        return;
+      }
 
-    redis.send(rq, res -> {
-      if (res.failed()) {
-        resultHandler.handle(Future.failedFuture(res.cause()));
+      Response response = resGet.result();
+      RedisHashSession session = new RedisHashSession(random);
+      if (response != null && session.readFromHash(id, response)) {
+        resultHandler.handle(Future.succeededFuture(session));
       } else {
         resultHandler.handle(Future.succeededFuture());
       }
     });
   }
 
-  @Override
-  public void clear(Handler<AsyncResult<Void>> resultHandler) {
-    redis.send(cmd(FLUSHDB), res -> {
-      if (res.failed()) {
-        resultHandler.handle(Future.failedFuture(res.cause()));
-      } else {
+  private void putHash(RedisHashSession session, Handler<AsyncResult<Void>> resultHandler) {
+    int version = session.version();
+    Runnable rollback = session.incrementVersionForWrite();
+    putHash(session, version, session.prepareWrite(false), rollback, resultHandler);
+  }
+
+  private void putHash(RedisHashSession session, int version, RedisHashSession.Write write, Runnable rollback, Handler<AsyncResult<Void>> resultHandler) {
+    // only the changed fields are sent, the meta field is always written as the last access time changes
+    eval(PUT_HASH_SESSION, cmd -> {
+        cmd
+          .arg(key(session.id()))
+          .arg(version)
+          .arg(session.timeout())
+          .arg(write.replace ? 1 : 0)
+          .arg(write.values.size() + 1)
+          .arg(RedisHashSession.META).arg(session.meta());
+        write.values.forEach((key, value) -> cmd.arg(RedisHashSession.DATA + key).arg(value));
+        write.removed.forEach(key -> cmd.arg(RedisHashSession.DATA + key));
+        return cmd;
+      },
+      res -> {
+        if (res.failed()) {
+          rollback.run();
+          resultHandler.handle(Future.failedFuture(res.cause()));
+          return;
+        }
+        int status = res.result() == null ? 0 : res.result().toInteger();
+        if (status == 2 && !write.replace) {
+          // the session is gone, it is written as a whole like a new session
+          putHash(session, version, session.prepareWrite(true), rollback, resultHandler);
+          return;
+        }
+        if (status != 1) {
+          rollback.run();
+          resultHandler.handle(Future.failedFuture("Session version mismatch"));
+          return;
+        }
+        session.written(write);
         resultHandler.handle(Future.succeededFuture());
+      });
+  }
+
+  /**
+   * Runs a script by its digest, the script is only sent when the server does not know it yet, e.g. after a restart
+   * or a {@code SCRIPT FLUSH}.
+   */
+  private void eval(Script script, Function<Request, Request> keyAndArgs, Handler<AsyncResult<Response>> handler) {
+    redis.send(keyAndArgs.apply(cmd(EVALSHA).arg(script.sha).arg(1)), res -> {
+      if (res.failed() && res.cause().getMessage() != null && res.cause().getMessage().startsWith("NOSCRIPT")) {
+        // EVAL also caches the script for the next EVALSHA
+        redis.send(keyAndArgs.apply(cmd(EVAL).arg(script.source).arg(1)), handler);
+      } else {
+        handler.handle(res);
       }
     });
   }
 
+  @Override
+  public void clear(Handler<AsyncResult<Void>> resultHandler) {
+    if (keyPrefix.isEmpty()) {
+      // the whole database is used by the store
+      redis.send(cmd(FLUSHDB), res -> {
+        if (res.failed()) {
+          resultHandler.handle(Future.failedFuture(res.cause()));
+        } else {
+          resultHandler.handle(Future.succeededFuture());
+        }
+      });
+      return;
+    }
+
+    // the keys are unlinked a batch at a time, so the server is never blocked and reclaims the memory in background
+    Promise<Void> promise = Promise.promise();
+    scan("0", keys -> {
+      if (keys.size() == 0) {
+        return Future.succeededFuture();
+      }
+      Request unlink = cmd(UNLINK);
+      for (Response key : keys) {
+        unlink.arg(key.toBuffer());
+      }
+      return redis.send(unlink).mapEmpty();
+    }, promise);
+    promise.future().onComplete(resultHandler);
+  }
+
   @Override
   public void size(Handler<AsyncResult<Integer>> resultHandler) {
-    redis.send(cmd(DBSIZE), res -> {
+    if (keyPrefix.isEmpty()) {
+      // the whole database is used by the store
+      redis.send(cmd(DBSIZE), res -> {
         if (res.succeeded()) {
           Response response = res.result();
           if (response == null) {
             resultHandler.handle(Future.succeededFuture(-1));
           } else {
-            Long lngCount = response.toLong();
-            int count = (lngCount > Integer.MAX_VALUE) ? Integer.MAX_VALUE : lngCount.intValue();
-            resultHandler.handle(Future.succeededFuture(count));
+            resultHandler.handle(Future.succeededFuture(toInt(response.toLong())));
           }
         } else {
           resultHandler.handle(Future.failedFuture(res.cause()));
         }
       });
+      return;
+    }
+
+    // the keys may be counted twice when the database is resized during the iteration
+    AtomicLong count = new AtomicLong();
+    Promise<Void> promise = Promise.promise();
+    scan("0", keys -> {
+      count.addAndGet(keys.size());
+      return Future.succeededFuture();
+    }, promise);
+    promise.future()
+      .map(v -> toInt(count.get()))
+      .onComplete(resultHandler);
+  }
+
+  /**
+   * Iterates over the keys of the sessions with {@code SCAN}, the next batch of keys is only requested once the
+   * previous batch was handled.
+   */
+  private void scan(String cursor, Function<Response, Future<Void>> batch, Promise<Void> promise) {
+    redis.send(cmd(SCAN).arg(cursor).arg("MATCH").arg(keyPattern()).arg("COUNT").arg(SCAN_COUNT), res -> {
+      if (res.failed()) {
+        promise.fail(res.cause());
+        return;
+      }
+      String next = res.result().get(0).toString();
+      batch.apply(res.result().get(1)).onComplete(batchRes -> {
+        if (batchRes.failed()) {
+          promise.fail(batchRes.cause());
+        } else if ("0".equals(next)) {
+          promise.complete();
+        } else {
+          scan(next, batch, promise);
+        }
+      });
+    });
+  }
+
+  private String key(String id) {
+    return keyPrefix.isEmpty() ? id : keyPrefix + id;
+  }
+
+  private String keyPattern() {
+    StringBuilder pattern = new StringBuilder(keyPrefix.length() + 1);
+    for (int i = 0; i < keyPrefix.length(); i++) {
+      char c = keyPrefix.charAt(i);
+      // glob special characters of the prefix match themselves
+      if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+        pattern.append('\\');
+      }
+      pattern.append(c);
+    }
+    return pattern.append('*').toString();
+  }
+
+  private static int toInt(long count) {
+    return (count > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) count;
   }
 
   @Override
   public void close() {
     redis.close();
   }
+
+  private static final class Script {
+
+    final String source;
+    final String sha;
+
+    Script(String source) {
+      this.source = source;
+      try {
+        StringBuilder hex = new StringBuilder(40);
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8))) {
+          hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        this.sha = hex.toString();
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
 }
@@ -1,19 +1,25 @@
 package io.vertx.ext.web.sstore.redis;
 
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.RunTestOnContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.redis.client.Command;
 import io.vertx.redis.client.Redis;
 import io.vertx.redis.client.RedisOptions;
+import io.vertx.redis.client.Request;
 import org.junit.*;
 
 import io.vertx.core.CompositeFuture;
 import io.vertx.ext.web.Session;
+import io.vertx.ext.web.sstore.AbstractSession;
 import io.vertx.ext.web.sstore.SessionStore;
 import org.junit.runner.RunWith;
 import org.testcontainers.containers.GenericContainer;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * @author <a href="https://github.com/llfbandit">Rémy Noël</a>
  */
@@ -83,6 +89,99 @@ public class RedisSessionStoreTest {
       });
   }
 
+  @Test(timeout = 10_000)
+  public void testVersionMismatch(TestContext should) {
+    final Async test = should.async();
+
+    Session session = store.createSession(30_000);
+    String value = session.value();
+    AtomicReference<AbstractSession> second = new AtomicReference<>();
+
+    store.put(session)
+      // two concurrent readers of the same session
+      .compose(aVoid -> CompositeFuture.all(store.get(value), store.get(value)))
+      .compose(sessions -> {
+        Session first = sessions.resultAt(0);
+        second.set(sessions.resultAt(1));
+        first.put("key", "first");
+        second.get().put("key", "second");
+        return store.put(first)
+          .compose(aVoid -> store.put(second.get()));
+      })
+      .onComplete(res -> {
+        // the second writer read a version which is not the stored one anymore
+        should.assertTrue(res.failed());
+        should.assertEquals("Session version mismatch", res.cause().getMessage());
+        // the session that was not stored keeps the version it was read with
+        should.assertEquals(0, second.get().version());
+        test.complete();
+      });
+  }
+
+  @Test(timeout = 10_000)
+  public void testHashSession(TestContext should) {
+    final Async test = should.async();
+
+    SessionStore store = RedisSessionStore.create(
+      rule.vertx(),
+      Redis.createClient(rule.vertx(), "redis://" + container.getContainerIpAddress() + ":" + container.getMappedPort(6379)),
+      new JsonObject().put("hash", true));
+
+    Session session = store.createSession(30_000);
+    String value = session.value();
+    session.put("cart", new JsonObject().put("items", 1));
+    session.put("flag", true);
+
+    store.put(session)
+      .compose(aVoid -> store.get(value))
+      .compose(sessionGet -> {
+        should.assertEquals(new JsonObject().put("items", 1), sessionGet.get("cart"));
+        should.assertTrue(sessionGet.get("flag"));
+        // only these fields are written back
+        sessionGet.<JsonObject>get("cart").put("items", 2);
+        sessionGet.remove("flag");
+        return store.put(sessionGet);
+      })
+      .compose(aVoid -> store.get(value))
+      .onComplete(should.asyncAssertSuccess(sessionGet -> {
+        should.assertEquals(new JsonObject().put("items", 2), sessionGet.get("cart"));
+        should.assertNull(sessionGet.get("flag"));
+        store.close();
+        test.complete();
+      }));
+  }
+
+  @Test(timeout = 10_000)
+  public void testHashSessionDeletedBeforeWrite(TestContext should) {
+    final Async test = should.async();
+
+    SessionStore store = RedisSessionStore.create(
+      rule.vertx(),
+      Redis.createClient(rule.vertx(), "redis://" + container.getContainerIpAddress() + ":" + container.getMappedPort(6379)),
+      new JsonObject().put("hash", true));
+
+    Session session = store.createSession(30_000);
+    String value = session.value();
+    session.put("cart", new JsonObject().put("items", 1));
+    session.put("flag", true);
+
+    store.put(session)
+      .compose(aVoid -> store.get(value))
+      .compose(sessionGet -> {
+        sessionGet.<JsonObject>get("cart").put("items", 2);
+        // the session expires or is deleted before it is written back
+        return store.delete(value).compose(aVoid -> store.put(sessionGet));
+      })
+      .compose(aVoid -> store.get(value))
+      .onComplete(should.asyncAssertSuccess(sessionGet -> {
+        // the unchanged fields are written again too
+        should.assertEquals(new JsonObject().put("items", 2), sessionGet.get("cart"));
+        should.assertTrue(sessionGet.get("flag"));
+        store.close();
+        test.complete();
+      }));
+  }
+
   @Test(timeout = 10_000)
   public void testClearSession(TestContext should) {
     final Async test = should.async();
@@ -118,6 +217,34 @@ public class RedisSessionStoreTest {
       });
   }
 
+  @Test(timeout = 10_000)
+  public void testKeyPrefix(TestContext should) {
+    final Async test = should.async();
+
+    Redis redis = Redis.createClient(rule.vertx(), "redis://" + container.getContainerIpAddress() + ":" + container.getMappedPort(6379));
+    SessionStore store = RedisSessionStore.create(rule.vertx(), redis, new JsonObject().put("keyPrefix", "session:"));
+
+    redis.send(Request.cmd(Command.SET).arg("cache:key").arg("value"))
+      .compose(res -> store.put(store.createSession(30_000)))
+      .compose(aVoid -> store.put(store.createSession(30_000)))
+      .compose(aVoid -> store.size())
+      .compose(size -> {
+        should.assertEquals(2, size);
+        return store.clear();
+      })
+      .compose(aVoid -> store.size())
+      .compose(size -> {
+        should.assertEquals(0, size);
+        // other data in the database is kept
+        return redis.send(Request.cmd(Command.GET).arg("cache:key"));
+      })
+      .onComplete(should.asyncAssertSuccess(res -> {
+        should.assertEquals("value", res.toString());
+        store.close();
+        test.complete();
+      }));
+  }
+
   @Test(timeout = 10_000)
   public void testDeleteSession(TestContext should) {
     final Async test = should.async();
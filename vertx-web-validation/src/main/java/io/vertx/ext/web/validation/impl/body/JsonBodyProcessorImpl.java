@@ -6,6 +6,7 @@ import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.Json;
 import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.JsonStreamHandler;
 import io.vertx.ext.web.impl.Utils;
 import io.vertx.ext.web.validation.BodyProcessorException;
 import io.vertx.ext.web.validation.MalformedValueException;
@@ -28,14 +29,19 @@ public class JsonBodyProcessorImpl implements BodyProcessor {
   @Override
   public Future<RequestParameter> process(RoutingContext requestContext) {
     try {
+      Object json;
       Buffer body = requestContext.getBody();
-      if (body == null) {
+      if (body != null) {
+        json = Json.decodeValue(body);
+      } else if (requestContext.data().containsKey(JsonStreamHandler.JSON_BODY)) {
+        // already parsed while it was received
+        json = requestContext.get(JsonStreamHandler.JSON_BODY);
+      } else {
         throw BodyProcessorException.createParsingError(
           requestContext.request().getHeader(HttpHeaders.CONTENT_TYPE),
           new MalformedValueException("Null body")
         );
       }
-      Object json = Json.decodeValue(body);
       return valueValidator.validate(json).recover(err -> Future.failedFuture(
         BodyProcessorException.createValidationError(requestContext.request().getHeader(HttpHeaders.CONTENT_TYPE), err)
       ));
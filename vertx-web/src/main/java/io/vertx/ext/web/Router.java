@@ -414,4 +414,22 @@ public interface Router extends Handler<HttpServerRequest> {
    */
   @Fluent
   Router allowForward(AllowForwardHeaders allowForwardHeaders);
+
+  /**
+   * Set whether the router should reuse the per request structures of the routing contexts (the context data, path
+   * and query parameters) once the response has ended. Pooled structures are kept per thread, so they never cross
+   * event loops.
+   * <p>
+   * This is an opt-in optimization for handlers that do not use the routing context after the response has ended.
+   * The structures are only reused when the response ended normally, once the handler which ended it has returned,
+   * structures of a request whose connection was closed are never reused. When enabled, accessing the context data
+   * or parameters after that fails with an {@link IllegalStateException}. Maps returned by
+   * {@link RoutingContext#data()} or {@link RoutingContext#pathParams()} must not be retained past the end of the
+   * response either.
+   *
+   * @param poolContexts {@code true} to reuse the per request structures
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  Router poolContexts(boolean poolContexts);
 }
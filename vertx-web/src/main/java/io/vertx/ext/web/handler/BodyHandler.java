@@ -18,10 +18,16 @@ package io.vertx.ext.web.handler;
 
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerFileUpload;
+import io.vertx.core.streams.WriteStream;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.impl.BodyHandlerImpl;
 
+import java.util.function.Function;
+
 /**
  * A handler which gathers the entire request body and sets it on the {@link RoutingContext}.
  * <p>
@@ -37,6 +43,12 @@ public interface BodyHandler extends Handler<RoutingContext> {
    */
   long DEFAULT_BODY_LIMIT = -1;
 
+  /**
+   * The key of the route metadata holding the max size in bytes of the request bodies of the route, it takes
+   * precedence over the limits of the handler
+   */
+  String BODY_LIMIT = "bodyLimit";
+
   /**
    * Default uploads directory on server for file uploads
    */
@@ -57,6 +69,11 @@ public interface BodyHandler extends Handler<RoutingContext> {
    */
   boolean DEFAULT_PREALLOCATE_BODY_BUFFER = false;
 
+  /**
+   * Default value of whether the body is kept as a composite of the received chunks
+   */
+  boolean DEFAULT_COMPOSITE_BODY_BUFFER = false;
+
   /**
    * Create a body handler with defaults
    *
@@ -104,6 +121,20 @@ public interface BodyHandler extends Handler<RoutingContext> {
   @Fluent
   BodyHandler setBodyLimit(long bodyLimit);
 
+  /**
+   * Set the maximum body size in bytes of the requests of a content type, {@code -1} means no limit. The content
+   * type is matched without its parameters, e.g. {@code multipart/form-data}.
+   * <p>
+   * Requests declaring a {@code Content-Length} larger than the limit are rejected before any of the body is read,
+   * this applies to every limit.
+   *
+   * @param contentType  the content type
+   * @param bodyLimit  the max size in bytes
+   * @return reference to this for fluency
+   */
+  @Fluent
+  BodyHandler setBodyLimit(String contentType, long bodyLimit);
+
   /**
    * Set the uploads directory to use
    *
@@ -113,6 +144,20 @@ public interface BodyHandler extends Handler<RoutingContext> {
   @Fluent
   BodyHandler setUploadsDirectory(String uploadsDirectory);
 
+  /**
+   * Set a factory of the streams file uploads are written to, instead of files in the uploads directory. The factory
+   * is called once per upload and the upload is piped to the returned stream, with back pressure, so uploads can be
+   * forwarded or processed (e.g. hashed) as they are received without a second read from disk.
+   * <p>
+   * The {@link io.vertx.ext.web.FileUpload#uploadedFileName()} of such uploads is {@code null}, a failed stream fails
+   * the request. {@code null} restores the default behavior.
+   *
+   * @param uploadStreamFactory  the factory of upload streams
+   * @return reference to this for fluency
+   */
+  @Fluent
+  BodyHandler setUploadStreamFactory(Function<HttpServerFileUpload, Future<WriteStream<Buffer>>> uploadStreamFactory);
+
   /**
    * Set whether form attributes will be added to the request parameters
    *
@@ -142,4 +187,16 @@ public interface BodyHandler extends Handler<RoutingContext> {
   @Fluent
   BodyHandler setPreallocateBodyBuffer(boolean isPreallocateBodyBuffer);
 
+  /**
+   * Keep the received chunks of the body as they are, in a composite buffer, instead of copying them into a single
+   * buffer that has to grow as the body is received. Large bodies are then never copied on growth, JSON bodies are
+   * parsed straight from the chunks and a contiguous copy is only made by the operations of the body
+   * {@link io.vertx.core.buffer.Buffer} that require one. When enabled the body buffer is not pre-allocated.
+   *
+   * @param compositeBodyBuffer {@code true} to keep the body as a composite of the received chunks
+   * @return reference to this for fluency
+   */
+  @Fluent
+  BodyHandler setCompositeBodyBuffer(boolean compositeBodyBuffer);
+
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.impl.CompressionHandlerImpl;
+
+import java.util.Set;
+
+/**
+ * A handler which decides, response by response, whether the HTTP server compresses the response.
+ * <p>
+ * The compression itself is performed by the server, it must be enabled with
+ * {@link io.vertx.core.http.HttpServerOptions#setCompressionSupported(boolean)}, the server options also define the
+ * compression level and the negotiation of the {@code Accept-Encoding}. Without this handler the server compresses
+ * every response, with it a response is only compressed when:
+ *
+ * <ul>
+ *   <li>the request accepts an encoding the server compresses with, e.g. {@code gzip}</li>
+ *   <li>the response is not already encoded</li>
+ *   <li>the {@link #COMPRESSION} metadata of the route that sends the response is not {@code false}</li>
+ *   <li>the content type of the response is compressible</li>
+ *   <li>the size of the response, when known, is at least the minimum size</li>
+ * </ul>
+ *
+ * When the request accepts such an encoding, other responses are sent with {@code Content-Encoding: identity}, which
+ * the server does not compress, so no CPU is wasted on small or already compressed content. As the server would not
+ * compress the responses of the other requests, they are left untouched.
+ */
+@VertxGen
+public interface CompressionHandler extends Handler<RoutingContext> {
+
+  /**
+   * The key of the route metadata that enables ({@code true}) or disables ({@code false}) the compression of the
+   * responses of a route. Enabled routes compress responses of any content type, the minimum size still applies.
+   */
+  String COMPRESSION = "compression";
+
+  /**
+   * Default minimum size in bytes of a compressed response
+   */
+  int DEFAULT_MIN_SIZE = 1024;
+
+  /**
+   * Create a handler with the default compressible content types: text, JSON, XML, JavaScript and SVG.
+   *
+   * @return the handler
+   */
+  static CompressionHandler create() {
+    return new CompressionHandlerImpl();
+  }
+
+  /**
+   * Set the minimum size in bytes of the responses to compress, smaller responses are not worth the CPU. The size
+   * of a response is known from its {@code Content-Length}, responses of unknown size (e.g. chunked) are always
+   * compressed.
+   *
+   * @param minSize the minimum size in bytes
+   * @return reference to this for fluency
+   */
+  @Fluent
+  CompressionHandler setMinSize(int minSize);
+
+  /**
+   * Set the compressible content types, replacing the defaults. A type may end with a wildcard, e.g. {@code text/*},
+   * and {@code +json} or {@code +xml} suffixes match every type with this suffix.
+   *
+   * @param contentTypes the compressible content types
+   * @return reference to this for fluency
+   */
+  @Fluent
+  CompressionHandler setContentTypes(Set<String> contentTypes);
+}
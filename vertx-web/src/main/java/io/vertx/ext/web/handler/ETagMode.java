@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * How the {@link StaticHandler} generates the {@code ETag} of the files it serves.
+ */
+@VertxGen
+public enum ETagMode {
+
+  /**
+   * No {@code ETag} is sent, revalidation relies on {@code Last-Modified} only.
+   */
+  NONE,
+
+  /**
+   * A weak {@code ETag} derived from the size and the last modified time of the file, it costs nothing to compute.
+   */
+  WEAK,
+
+  /**
+   * A strong {@code ETag} derived from a hash of the file content. The file is read once in the background to compute
+   * it, the tag is then kept with the cached file properties and the weak {@code ETag} is sent until it is known. When
+   * the file properties are not cached, e.g. caching is disabled, the weak {@code ETag} is always sent, so that the
+   * file is not read twice on every request.
+   */
+  STRONG
+}
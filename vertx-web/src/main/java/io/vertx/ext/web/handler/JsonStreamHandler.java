@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler;
+
+import io.vertx.codegen.annotations.Fluent;
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.impl.JsonStreamHandlerImpl;
+
+/**
+ * A handler which parses JSON request bodies as they are received, without buffering the whole body first.
+ * <p>
+ * {@code application/json} (and {@code +json}) bodies and newline delimited JSON ({@code application/x-ndjson})
+ * bodies are fed chunk by chunk to a JSON parser. Requests of other content types are passed to the next handler
+ * untouched. The handler takes the place of the {@link BodyHandler} for the requests it parses, the
+ * {@link RoutingContext#getBody()} is not set.
+ * <p>
+ * By default the next handler is called once the body has been parsed, the value is stored in the context data
+ * under the {@link #JSON_BODY} key. A newline delimited body is stored as a {@link io.vertx.core.json.JsonArray} of
+ * its values.
+ * <p>
+ * When the elements are streamed, the next handler is called right away and a {@link io.vertx.core.streams.ReadStream}
+ * of the elements is stored under the {@link #JSON_ELEMENTS} key. The elements are the items of a top level array,
+ * the single top level value otherwise, or the values of a newline delimited body. The stream applies back pressure to
+ * the request, so large array uploads are processed with a bounded amount of memory. Nothing is read until a handler
+ * is set on the stream.
+ */
+@VertxGen
+public interface JsonStreamHandler extends Handler<RoutingContext> {
+
+  /**
+   * The key of the parsed JSON value in the context data.
+   */
+  String JSON_BODY = "jsonBody";
+
+  /**
+   * The key of the stream of JSON elements in the context data.
+   */
+  String JSON_ELEMENTS = "jsonElements";
+
+  /**
+   * Default max size for a request body = {@code -1} means unlimited
+   */
+  long DEFAULT_BODY_LIMIT = -1;
+
+  /**
+   * Create a handler that parses the whole body before calling the next handler.
+   *
+   * @return the handler
+   */
+  static JsonStreamHandler create() {
+    return create(false);
+  }
+
+  /**
+   * Create a handler.
+   *
+   * @param streamElements {@code true} to stream the elements to the next handler, {@code false} to parse the whole
+   *                       body first
+   * @return the handler
+   */
+  static JsonStreamHandler create(boolean streamElements) {
+    return new JsonStreamHandlerImpl(streamElements);
+  }
+
+  /**
+   * Set the maximum body size in bytes, {@code -1} means no limit
+   *
+   * @param bodyLimit  the max size in bytes
+   * @return reference to this for fluency
+   */
+  @Fluent
+  JsonStreamHandler setBodyLimit(long bodyLimit);
+}
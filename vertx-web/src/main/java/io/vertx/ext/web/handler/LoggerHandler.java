@@ -87,4 +87,15 @@ public interface LoggerHandler extends Handler<RoutingContext> {
    */
   @Fluent
   LoggerHandler customFormatter(LoggerFormatter formatter);
+
+  /**
+   * Write the log lines to the given file instead of the Vert.x logger. Lines are batched per event loop and appended
+   * to the file asynchronously in large chunks, so the event loop never waits for the file system. Lines are written
+   * regardless of the response status, the last batch may be lost if Vert.x is closed right after a request.
+   *
+   * @param path the path of the log file, lines are appended when the file exists
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  LoggerHandler logFile(String path);
 }
@@ -117,6 +117,26 @@ public interface StaticHandler extends Handler<RoutingContext> {
    */
   boolean DEFAULT_SEND_VARY_HEADER = true;
 
+  /**
+   * Default of whether precompressed files should be served.
+   */
+  boolean DEFAULT_PRECOMPRESSED_ASSETS = false;
+
+  /**
+   * Default max size in bytes of the in memory file content cache, {@code 0} disables the cache.
+   */
+  long DEFAULT_MAX_CONTENT_CACHE_SIZE = 0;
+
+  /**
+   * Default max size in bytes of a file kept in the in memory file content cache.
+   */
+  int DEFAULT_MAX_CACHED_FILE_SIZE = 64 * 1024;
+
+  /**
+   * Default ETag generation mode.
+   */
+  ETagMode DEFAULT_ETAG_MODE = ETagMode.NONE;
+
   /**
    * Create a handler using defaults
    *
@@ -337,4 +357,62 @@ public interface StaticHandler extends Handler<RoutingContext> {
    */
   @Fluent
   StaticHandler setDefaultContentEncoding(String contentEncoding);
+
+  /**
+   * Set whether precompressed variants of the files should be served. When enabled and the client accepts the
+   * {@code br} or {@code gzip} content encoding, the {@code .br} or {@code .gz} file next to the requested file is sent
+   * as is, with the matching {@code Content-Encoding}, so the server does not compress the same file on every request.
+   * A variant older than the requested file is ignored. Range requests are always served from the requested file.
+   *
+   * @param precompressedAssets true to serve precompressed files
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setPrecompressedAssets(boolean precompressedAssets);
+
+  /**
+   * Set the max size in bytes of the in memory file content cache. Small files are kept in off heap memory and sent
+   * with a single write instead of opening the file on every request. A cached content is reloaded when the size or
+   * the last modified time of the file changes, so how often it is verified follows the file properties cache settings.
+   *
+   * @param maxContentCacheSize the max size in bytes of the cached contents, {@code 0} to disable the cache
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setMaxContentCacheSize(long maxContentCacheSize);
+
+  /**
+   * Set the max size in bytes of a file kept in the in memory file content cache.
+   *
+   * @param maxCachedFileSize the max size in bytes of a cached file
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setMaxCachedFileSize(int maxCachedFileSize);
+
+  /**
+   * Set how the {@code ETag} of the files is generated. When enabled, {@code If-None-Match} and {@code If-Match}
+   * requests are validated against it, so revalidations do not depend on the one second granularity of
+   * {@code Last-Modified}.
+   *
+   * @param etagMode the ETag generation mode
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setETagMode(ETagMode etagMode);
+
+  /**
+   * Set whether the web root should be watched for changes. When enabled, the cached file properties are invalidated
+   * as soon as a file of the web root changes, and cached files are served without verifying the file system on every
+   * request. Long cache entry timeouts or read only files can then be used without serving stale files after a
+   * deployment. Only a web root that is a directory of the file system can be watched, class path resources cannot.
+   * <p>
+   * The web root is watched from the first request, until the verticle which handled it is undeployed or Vert.x is
+   * closed. Handlers serving the same web root share a single watcher.
+   *
+   * @param watchWebRoot true to watch the web root
+   * @return a reference to this, so the API can be used fluently
+   */
+  @Fluent
+  StaticHandler setWatchWebRoot(boolean watchWebRoot);
 }
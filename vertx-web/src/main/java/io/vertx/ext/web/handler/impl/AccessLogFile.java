@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.Closeable;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An access log file. Lines are batched per context, so there is no contention between event loops, and the batches
+ * are appended to the file asynchronously once they reach {@link #CHUNK_SIZE} or {@link #FLUSH_INTERVAL} milliseconds
+ * after the first line of the batch.
+ * <p>
+ * The file is opened on the first write and closed, once the pending batches are written, when the verticle which
+ * opened it is undeployed or Vert.x is closed. A later write opens it again.
+ */
+final class AccessLogFile {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AccessLogFile.class);
+
+  static final int CHUNK_SIZE = 64 * 1024;
+  static final long FLUSH_INTERVAL = 100;
+
+  private final String path;
+  // the batch of each context is kept in the context data under this key
+  private final String key;
+  private final Set<Batch> batches = ConcurrentHashMap.newKeySet();
+  private Future<AsyncFile> file;
+  private final Closeable closeHook = this::close;
+
+  AccessLogFile(String path) {
+    this.path = path;
+    this.key = "__vertx.web.accessLog." + System.identityHashCode(this);
+  }
+
+  /**
+   * Appends a line to the batch of the current context, must be called from a Vert.x thread.
+   */
+  void append(Vertx vertx, CharSequence line) {
+    final Context context = vertx.getOrCreateContext();
+    Batch batch = context.get(key);
+    if (batch == null) {
+      batch = new Batch(context);
+      context.put(key, batch);
+      batches.add(batch);
+    }
+    batch.append(line);
+  }
+
+  private synchronized Future<AsyncFile> file(Context context) {
+    Future<AsyncFile> current = file;
+    if (current == null) {
+      final ContextInternal ctx = (ContextInternal) context;
+      final Future<AsyncFile> open = ctx.owner().fileSystem()
+        .open(path, new OpenOptions().setCreate(true).setAppend(true));
+      file = open;
+      current = open;
+      ctx.addCloseHook(closeHook);
+      open.onFailure(err -> {
+        LOG.error("Failed to open access log file: " + path, err);
+        // the next flush tries again, e.g. the directory may not exist yet
+        synchronized (this) {
+          if (file == open) {
+            file = null;
+            ctx.removeCloseHook(closeHook);
+          }
+        }
+      });
+    }
+    return current;
+  }
+
+  private void write(Context context, Buffer chunk) {
+    file(context).onSuccess(asyncFile -> {
+      // batches of all the event loops share the file
+      synchronized (this) {
+        asyncFile.write(chunk)
+          .onFailure(err -> LOG.error("Failed to write access log file: " + path, err));
+      }
+    });
+  }
+
+  /**
+   * Writes the pending batches and closes the file, the pending writes are completed by {@link AsyncFile#close()}.
+   */
+  private void close(Promise<Void> completion) {
+    @SuppressWarnings("rawtypes")
+    final List<Future> flushed = new ArrayList<>();
+    for (Batch batch : batches) {
+      final Promise<Void> promise = Promise.promise();
+      // a batch is only used from its own context
+      batch.context.runOnContext(v -> {
+        batch.flush();
+        batch.context.remove(key);
+        batches.remove(batch);
+        promise.complete();
+      });
+      flushed.add(promise.future());
+    }
+
+    CompositeFuture.join(flushed).onComplete(v -> {
+      final Future<AsyncFile> file;
+      synchronized (this) {
+        file = this.file;
+        this.file = null;
+      }
+      if (file == null) {
+        completion.complete();
+        return;
+      }
+      file
+        .compose(AsyncFile::close)
+        .onComplete(close -> {
+          if (close.failed()) {
+            LOG.error("Failed to close access log file: " + path, close.cause());
+          }
+          completion.complete();
+        });
+    });
+  }
+
+  private final class Batch {
+
+    private final Context context;
+    private Buffer buffer = Buffer.buffer(CHUNK_SIZE);
+    private boolean scheduled;
+
+    Batch(Context context) {
+      this.context = context;
+    }
+
+    void append(CharSequence line) {
+      final int len = line.length();
+      for (int i = 0; i < len; i++) {
+        final char c = line.charAt(i);
+        if (c < 0x80) {
+          buffer.appendByte((byte) c);
+        } else {
+          // not plain ascii, encode the remaining of the line
+          buffer.appendString(line.subSequence(i, len).toString(), StandardCharsets.UTF_8.name());
+          break;
+        }
+      }
+      buffer.appendByte((byte) '\n');
+
+      if (buffer.length() >= CHUNK_SIZE) {
+        flush();
+      } else if (!scheduled) {
+        scheduled = true;
+        context.owner().setTimer(FLUSH_INTERVAL, t -> {
+          scheduled = false;
+          flush();
+        });
+      }
+    }
+
+    private void flush() {
+      if (buffer.length() > 0) {
+        final Buffer chunk = buffer;
+        buffer = Buffer.buffer(CHUNK_SIZE);
+        write(context, chunk);
+      }
+    }
+  }
+}
@@ -17,21 +17,33 @@
 package io.vertx.ext.web.handler.impl;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.http.HttpHeaderValues;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.file.FileSystem;
 import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerFileUpload;
 import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.core.streams.Pipe;
+import io.vertx.core.streams.WriteStream;
 import io.vertx.ext.web.FileUpload;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
@@ -46,11 +58,16 @@ public class BodyHandlerImpl implements BodyHandler {
   private static final Logger LOG = LoggerFactory.getLogger(BodyHandlerImpl.class);
 
   private long bodyLimit = DEFAULT_BODY_LIMIT;
+  private final Map<String, Long> contentTypeBodyLimits = new HashMap<>();
   private boolean handleFileUploads;
   private String uploadsDir;
   private boolean mergeFormAttributes = DEFAULT_MERGE_FORM_ATTRIBUTES;
   private boolean deleteUploadedFilesOnEnd = DEFAULT_DELETE_UPLOADED_FILES_ON_END;
   private boolean isPreallocateBodyBuffer = DEFAULT_PREALLOCATE_BODY_BUFFER;
+  private boolean compositeBodyBuffer = DEFAULT_COMPOSITE_BODY_BUFFER;
+  private Function<HttpServerFileUpload, Future<WriteStream<Buffer>>> uploadStreamFactory;
+  // the uploads directory is created once, the creation is shared by all the requests
+  private volatile Future<Void> uploadsDirReady;
   private static final int DEFAULT_INITIAL_BODY_BUFFER_SIZE = 1024; //bytes
 
 
@@ -80,8 +97,16 @@ public class BodyHandlerImpl implements BodyHandler {
     }
     // we need to keep state since we can be called again on reroute
     if (!((RoutingContextInternal) context).seenHandler(RoutingContextInternal.BODY_HANDLER)) {
-      long contentLength = isPreallocateBodyBuffer ? parseContentLengthHeader(request) : -1;
-      BHandler handler = new BHandler(context, contentLength);
+      final long limit = bodyLimit(context);
+      long contentLength = parseContentLengthHeader(request);
+      if (limit != -1 && contentLength > limit) {
+        rejectTooLarge(context);
+        return;
+      }
+      if (!isPreallocateBodyBuffer) {
+        contentLength = -1;
+      }
+      BHandler handler = new BHandler(context, contentLength, limit);
       request.handler(handler);
       request.endHandler(v -> handler.end());
       ((RoutingContextInternal) context).visitHandler(RoutingContextInternal.BODY_HANDLER);
@@ -108,8 +133,21 @@ public class BodyHandlerImpl implements BodyHandler {
   }
 
   @Override
-  public BodyHandler setUploadsDirectory(String uploadsDirectory) {
+  public BodyHandler setBodyLimit(String contentType, long bodyLimit) {
+    contentTypeBodyLimits.put(mediaType(contentType), bodyLimit);
+    return this;
+  }
+
+  @Override
+  public synchronized BodyHandler setUploadsDirectory(String uploadsDirectory) {
     this.uploadsDir = uploadsDirectory;
+    this.uploadsDirReady = null;
+    return this;
+  }
+
+  @Override
+  public BodyHandler setUploadStreamFactory(Function<HttpServerFileUpload, Future<WriteStream<Buffer>>> uploadStreamFactory) {
+    this.uploadStreamFactory = uploadStreamFactory;
     return this;
   }
 
@@ -131,6 +169,77 @@ public class BodyHandlerImpl implements BodyHandler {
     return this;
   }
 
+  @Override
+  public BodyHandler setCompositeBodyBuffer(boolean compositeBodyBuffer) {
+    this.compositeBodyBuffer = compositeBodyBuffer;
+    return this;
+  }
+
+  /**
+   * Creates the uploads directory without blocking, the creation only happens once unless it fails.
+   */
+  private Future<Void> prepareUploadsDir(FileSystem fileSystem) {
+    Future<Void> ready = uploadsDirReady;
+    if (ready == null) {
+      synchronized (this) {
+        ready = uploadsDirReady;
+        if (ready == null) {
+          // existing directories are not an error
+          ready = fileSystem.mkdirs(uploadsDir);
+          uploadsDirReady = ready;
+        }
+      }
+    }
+    return ready;
+  }
+
+  /**
+   * Forgets the uploads directory creation, so it is retried by the next request.
+   */
+  private synchronized void resetUploadsDir(Future<Void> ready) {
+    if (uploadsDirReady == ready) {
+      uploadsDirReady = null;
+    }
+  }
+
+  /**
+   * The limit of the route metadata, or the limit of the content type of the request, or the default limit.
+   */
+  private long bodyLimit(RoutingContext context) {
+    final Object routeLimit = context.currentRoute() == null ? null : context.currentRoute().getMetadata(BODY_LIMIT);
+    if (routeLimit instanceof Number) {
+      return ((Number) routeLimit).longValue();
+    }
+    if (!contentTypeBodyLimits.isEmpty()) {
+      final String contentType = context.request().getHeader(HttpHeaders.CONTENT_TYPE);
+      if (contentType != null) {
+        final Long limit = contentTypeBodyLimits.get(mediaType(contentType));
+        if (limit != null) {
+          return limit;
+        }
+      }
+    }
+    return bodyLimit;
+  }
+
+  private static String mediaType(String contentType) {
+    final int sep = contentType.indexOf(';');
+    return (sep == -1 ? contentType : contentType.substring(0, sep)).trim().toLowerCase();
+  }
+
+  /**
+   * Rejects a request that declares a body larger than the limit, without reading it.
+   */
+  private static void rejectTooLarge(RoutingContext context) {
+    final HttpServerRequest request = context.request();
+    // an HTTP/1.x connection would have to drain the body to be reused, it is closed instead
+    if (request.version() != HttpVersion.HTTP_2) {
+      context.response().putHeader(HttpHeaders.CONNECTION, HttpHeaders.CLOSE);
+      context.addEndHandler(v -> request.connection().close());
+    }
+    context.fail(413);
+  }
+
   private long parseContentLengthHeader(HttpServerRequest request) {
     String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
     if (contentLength == null || contentLength.isEmpty()) {
@@ -148,8 +257,13 @@ public class BodyHandlerImpl implements BodyHandler {
     private static final int MAX_PREALLOCATED_BODY_BUFFER_BYTES = 65535;
 
     final RoutingContext context;
+    final Context ctx;
     final long contentLength;
+    final long bodyLimit;
+    final boolean composite;
     Buffer body;
+    // the received chunks, when the body is not copied into a single buffer
+    CompositeByteBuf chunks;
     boolean failed;
     AtomicInteger uploadCount = new AtomicInteger();
     AtomicBoolean cleanup = new AtomicBoolean(false);
@@ -158,9 +272,12 @@ public class BodyHandlerImpl implements BodyHandler {
     final boolean isMultipart;
     final boolean isUrlEncoded;
 
-    public BHandler(RoutingContext context, long contentLength) {
+    public BHandler(RoutingContext context, long contentLength, long bodyLimit) {
       this.context = context;
+      this.bodyLimit = bodyLimit;
+      this.ctx = context.vertx().getOrCreateContext();
       this.contentLength = contentLength;
+      this.composite = compositeBodyBuffer;
       // the request clearly states that there should
       // be a body, so we respect the client and ensure
       // that the body will not be null
@@ -182,9 +299,11 @@ public class BodyHandlerImpl implements BodyHandler {
 
       if (isMultipart || isUrlEncoded) {
         context.request().setExpectMultipart(true);
-        if (handleFileUploads) {
-          makeUploadDir(context.vertx().fileSystem());
-        }
+        // uploads handed to the application stream never touch the uploads directory
+        final Function<HttpServerFileUpload, Future<WriteStream<Buffer>>> streamFactory = uploadStreamFactory;
+        final Future<Void> dirReady = handleFileUploads && streamFactory == null ?
+          prepareUploadsDir(context.vertx().fileSystem()) :
+          null;
         context.request().uploadHandler(upload -> {
           if (bodyLimit != -1 && upload.isSizeAvailable()) {
             // we can try to abort even before the upload starts
@@ -197,20 +316,20 @@ public class BodyHandlerImpl implements BodyHandler {
             }
           }
           if (handleFileUploads) {
-            // we actually upload to a file with a generated filename
             uploadCount.incrementAndGet();
-            String uploadedFileName = new File(uploadsDir, UUID.randomUUID().toString()).getPath();
-            FileUploadImpl fileUpload = new FileUploadImpl(uploadedFileName, upload);
-            fileUploads.add(fileUpload);
-            Future<Void> fut = upload.streamToFileSystem(uploadedFileName);
-            fut.onComplete(ar -> {
-              if (fut.succeeded()) {
-                uploadEnded();
+            if (streamFactory != null) {
+              streamToApplication(upload, streamFactory, fileUploads);
+            } else {
+              // we actually upload to a file with a generated filename
+              String uploadedFileName = new File(uploadsDir, UUID.randomUUID().toString()).getPath();
+              if (dirReady.isComplete()) {
+                streamToFileSystem(upload, uploadedFileName, dirReady, fileUploads);
               } else {
-                cancelAndCleanupFileUploads();
-                context.fail(ar.cause());
+                // buffer the upload until the directory exists
+                upload.pause();
+                dirReady.onComplete(onContext(ar -> streamToFileSystem(upload, uploadedFileName, dirReady, fileUploads)));
               }
-            });
+            }
           }
         });
       }
@@ -227,6 +346,12 @@ public class BodyHandlerImpl implements BodyHandler {
     }
 
     private void initBodyBuffer() {
+      if (composite) {
+        // the chunks are kept as they are, there is no point in limiting the components as merging them is a copy
+        chunks = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        return;
+      }
+
       int initialBodyBufferSize;
       if (contentLength < 0) {
         initialBodyBufferSize = DEFAULT_INITIAL_BODY_BUFFER_SIZE;
@@ -243,10 +368,75 @@ public class BodyHandlerImpl implements BodyHandler {
       this.body = Buffer.buffer(initialBodyBufferSize);
     }
 
-    private void makeUploadDir(FileSystem fileSystem) {
-      if (!fileSystem.existsBlocking(uploadsDir)) {
-        fileSystem.mkdirsBlocking(uploadsDir);
+    private void streamToFileSystem(HttpServerFileUpload upload, String uploadedFileName, Future<Void> dirReady, Set<FileUpload> fileUploads) {
+      if (failed || cleanup.get()) {
+        return;
+      }
+      if (dirReady.failed()) {
+        resetUploadsDir(dirReady);
+        uploadFailed(dirReady.cause());
+        return;
+      }
+      // only uploads being streamed can be cancelled, so the upload is only visible from now on
+      fileUploads.add(new FileUploadImpl(uploadedFileName, upload));
+      upload.streamToFileSystem(uploadedFileName).onComplete(ar -> {
+        if (ar.succeeded()) {
+          uploadEnded();
+        } else {
+          // the directory may have been removed since it was created
+          resetUploadsDir(dirReady);
+          uploadFailed(ar.cause());
+        }
+      });
+    }
+
+    private void streamToApplication(HttpServerFileUpload upload, Function<HttpServerFileUpload, Future<WriteStream<Buffer>>> streamFactory, Set<FileUpload> fileUploads) {
+      // the pipe pauses the upload until the application stream is available
+      final Pipe<Buffer> pipe = upload.pipe();
+      final StreamedFileUpload fileUpload = new StreamedFileUpload(upload, pipe);
+      fileUploads.add(fileUpload);
+
+      Future<WriteStream<Buffer>> stream;
+      try {
+        stream = streamFactory.apply(upload);
+      } catch (RuntimeException e) {
+        stream = Future.failedFuture(e);
+      }
+
+      stream
+        .compose(pipe::to)
+        .onComplete(onContext(ar -> {
+          fileUpload.completed = true;
+          if (ar.succeeded()) {
+            uploadEnded();
+          } else {
+            pipe.close();
+            uploadFailed(ar.cause());
+          }
+        }));
+    }
+
+    private void uploadFailed(Throwable cause) {
+      if (failed) {
+        return;
       }
+      failed = true;
+      cancelAndCleanupFileUploads();
+      context.fail(cause);
+    }
+
+    /**
+     * Completions of file system and application streams may happen on other threads, they are always handled on
+     * the request context.
+     */
+    private <T> Handler<AsyncResult<T>> onContext(Handler<AsyncResult<T>> handler) {
+      return ar -> {
+        if (Vertx.currentContext() == ctx) {
+          handler.handle(ar);
+        } else {
+          ctx.runOnContext(v -> handler.handle(ar));
+        }
+      };
     }
 
     @Override
@@ -264,10 +454,18 @@ public class BodyHandlerImpl implements BodyHandler {
         // url encoded should also not, however jQuery by default
         // post in urlencoded even if the payload is something else
         if (!isMultipart /* && !isUrlEncoded */) {
-          if (body == null) {
-            initBodyBuffer();
+          if (composite) {
+            if (chunks == null) {
+              initBodyBuffer();
+            }
+            // received buffers are not reused by the server, so they can be kept without a copy
+            chunks.addComponent(true, buff.getByteBuf());
+          } else {
+            if (body == null) {
+              initBodyBuffer();
+            }
+            body.appendBuffer(buff);
           }
-          body.appendBuffer(buff);
         }
       }
     }
@@ -306,9 +504,10 @@ public class BodyHandlerImpl implements BodyHandler {
       if (mergeFormAttributes && req.isExpectMultipart()) {
         req.params().addAll(req.formAttributes());
       }
-      context.setBody(body);
+      context.setBody(chunks != null ? Buffer.buffer(chunks) : body);
       // release body as it may take lots of memory
       body = null;
+      chunks = null;
 
       context.next();
     }
@@ -320,8 +519,9 @@ public class BodyHandlerImpl implements BodyHandler {
       if (cleanup.compareAndSet(false, true) && handleFileUploads) {
         for (FileUpload fileUpload : context.fileUploads()) {
           FileSystem fileSystem = context.vertx().fileSystem();
-          if (!fileUpload.cancel()) {
-            String uploadedFileName = fileUpload.uploadedFileName();
+          String uploadedFileName = fileUpload.uploadedFileName();
+          // uploads streamed to the application have no file to delete
+          if (!fileUpload.cancel() && uploadedFileName != null) {
             fileSystem.delete(uploadedFileName, deleteResult -> {
               if (deleteResult.failed()) {
                 LOG.warn("Delete of uploaded file failed: " + uploadedFileName, deleteResult.cause());
@@ -333,4 +533,27 @@ public class BodyHandlerImpl implements BodyHandler {
     }
   }
 
+  /**
+   * An upload streamed to a {@link WriteStream} of the application instead of the uploads directory.
+   */
+  private static final class StreamedFileUpload extends FileUploadImpl {
+
+    private final Pipe<Buffer> pipe;
+    boolean completed;
+
+    StreamedFileUpload(HttpServerFileUpload upload, Pipe<Buffer> pipe) {
+      super(null, upload);
+      this.pipe = pipe;
+    }
+
+    @Override
+    public boolean cancel() {
+      if (completed) {
+        return false;
+      }
+      completed = true;
+      pipe.close();
+      return true;
+    }
+  }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser of the {@code Range} header byte ranges specifiers.
+ */
+final class ByteRanges {
+
+  // more ranges than this are not worth the multipart overhead, the whole file is sent instead
+  static final int MAX_RANGES = 16;
+
+  private static final long[] UNSATISFIABLE = {};
+  private static final long INVALID = -2;
+  private static final long ABSENT = -1;
+
+  private ByteRanges() {
+  }
+
+  /**
+   * Parses the byte ranges of a {@code Range} header. Suffix ranges ({@code bytes=-500}) and open ranges
+   * ({@code bytes=500-}) are resolved against the size, ranges are sorted and overlapping or adjacent ranges are
+   * coalesced.
+   *
+   * @param header the header value
+   * @param size the size of the file
+   * @return the inclusive start and end offsets of each range, an empty array when no range is satisfiable or
+   * {@code null} when the header must be ignored
+   */
+  static long[] parse(String header, long size) {
+    if (!header.regionMatches(true, 0, "bytes=", 0, 6)) {
+      return null;
+    }
+
+    final List<long[]> ranges = new ArrayList<>();
+    final int len = header.length();
+    boolean specified = false;
+    int i = 6;
+
+    while (i <= len) {
+      int comma = header.indexOf(',', i);
+      if (comma == -1) {
+        comma = len;
+      }
+      final String spec = header.substring(i, comma).trim();
+      i = comma + 1;
+
+      if (spec.isEmpty()) {
+        // empty list elements are allowed
+        continue;
+      }
+      specified = true;
+
+      final int dash = spec.indexOf('-');
+      if (dash == -1) {
+        return null;
+      }
+      final long first = dash == 0 ? ABSENT : number(spec, 0, dash);
+      final long last = dash == spec.length() - 1 ? ABSENT : number(spec, dash + 1, spec.length());
+      if (first == INVALID || last == INVALID) {
+        return null;
+      }
+
+      if (first == ABSENT) {
+        if (last == ABSENT) {
+          return null;
+        }
+        // the last N bytes
+        if (last > 0 && size > 0) {
+          ranges.add(new long[]{Math.max(0, size - last), size - 1});
+        }
+      } else if (first < size && (last == ABSENT || last >= first)) {
+        ranges.add(new long[]{first, last == ABSENT ? size - 1 : Math.min(last, size - 1)});
+      }
+    }
+
+    if (!specified) {
+      return null;
+    }
+    if (ranges.isEmpty()) {
+      return UNSATISFIABLE;
+    }
+
+    ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+    final List<long[]> coalesced = new ArrayList<>(ranges.size());
+    long[] current = ranges.get(0);
+    for (int j = 1; j < ranges.size(); j++) {
+      final long[] next = ranges.get(j);
+      if (next[0] <= current[1] + 1) {
+        current[1] = Math.max(current[1], next[1]);
+      } else {
+        coalesced.add(current);
+        current = next;
+      }
+    }
+    coalesced.add(current);
+
+    if (coalesced.size() > MAX_RANGES) {
+      return null;
+    }
+
+    final long[] result = new long[coalesced.size() * 2];
+    for (int j = 0; j < coalesced.size(); j++) {
+      result[2 * j] = coalesced.get(j)[0];
+      result[2 * j + 1] = coalesced.get(j)[1];
+    }
+    return result;
+  }
+
+  /**
+   * Parses a non negative number, saturated to {@link Long#MAX_VALUE}.
+   */
+  private static long number(String value, int from, int to) {
+    long n = 0;
+    for (int i = from; i < to; i++) {
+      final char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return INVALID;
+      }
+      n = n > (Long.MAX_VALUE - 9) / 10 ? Long.MAX_VALUE : n * 10 + (c - '0');
+    }
+    return n;
+  }
+}
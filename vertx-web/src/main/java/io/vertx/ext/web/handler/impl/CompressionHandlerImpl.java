@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.ParsedHeaderValue;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.CompressionHandler;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+public class CompressionHandlerImpl implements CompressionHandler {
+
+  private static final Set<String> DEFAULT_CONTENT_TYPES = new HashSet<>(Arrays.asList(
+    "text/*",
+    "application/json",
+    "+json",
+    "application/xml",
+    "+xml",
+    "application/javascript",
+    "application/x-javascript",
+    "image/svg+xml"));
+
+  // the encodings the server may choose to compress a response, any other encoding is never compressed
+  private static final Set<String> COMPRESSED_ENCODINGS = new HashSet<>(Arrays.asList(
+    "gzip",
+    "x-gzip",
+    "deflate",
+    "br",
+    "*"));
+
+  private int minSize = DEFAULT_MIN_SIZE;
+  // exact types, the prefixes of the wildcard types and the suffixes
+  private Set<String> types;
+  private Set<String> prefixes;
+  private Set<String> suffixes;
+
+  public CompressionHandlerImpl() {
+    setContentTypes(DEFAULT_CONTENT_TYPES);
+  }
+
+  @Override
+  public CompressionHandler setMinSize(int minSize) {
+    this.minSize = minSize;
+    return this;
+  }
+
+  @Override
+  public CompressionHandler setContentTypes(Set<String> contentTypes) {
+    final Set<String> types = new HashSet<>();
+    final Set<String> prefixes = new HashSet<>();
+    final Set<String> suffixes = new HashSet<>();
+    for (String contentType : contentTypes) {
+      final String type = contentType.trim().toLowerCase(Locale.ROOT);
+      if (type.startsWith("+")) {
+        suffixes.add(type);
+      } else if (type.endsWith("/*")) {
+        prefixes.add(type.substring(0, type.length() - 1));
+      } else {
+        types.add(type);
+      }
+    }
+    this.types = types;
+    this.prefixes = prefixes;
+    this.suffixes = suffixes;
+    return this;
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    // nothing to decide when the client does not accept any encoding the server compresses with
+    if (context.request().headers().contains(HttpHeaders.ACCEPT_ENCODING) && acceptsCompression(context)) {
+      context.addHeadersEndHandler(v -> {
+        final HttpServerResponse response = context.response();
+        final MultiMap headers = response.headers();
+        // already encoded, or already opted out
+        if (!headers.contains(HttpHeaders.CONTENT_ENCODING) && !compress(context, response)) {
+          headers.set(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
+        }
+      });
+    }
+    context.next();
+  }
+
+  private static boolean acceptsCompression(RoutingContext context) {
+    for (ParsedHeaderValue encoding : context.parsedHeaders().acceptEncoding()) {
+      if (encoding.weight() > 0 && COMPRESSED_ENCODINGS.contains(encoding.value().toLowerCase(Locale.ROOT))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean compress(RoutingContext context, HttpServerResponse response) {
+    // the route that is sending the response
+    final Route route = context.currentRoute();
+    final Object enabled = route == null ? null : route.getMetadata(COMPRESSION);
+    if (Boolean.FALSE.equals(enabled)) {
+      return false;
+    }
+    // routes enabling the compression explicitly compress any content type
+    if (!Boolean.TRUE.equals(enabled) && !isCompressible(response.headers().get(HttpHeaders.CONTENT_TYPE))) {
+      return false;
+    }
+
+    final long size = size(response);
+    return size == -1 || size >= minSize;
+  }
+
+  private boolean isCompressible(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    final int sep = contentType.indexOf(';');
+    final String type = (sep == -1 ? contentType : contentType.substring(0, sep)).trim().toLowerCase(Locale.ROOT);
+    if (types.contains(type)) {
+      return true;
+    }
+    final int slash = type.indexOf('/');
+    if (slash != -1 && prefixes.contains(type.substring(0, slash + 1))) {
+      return true;
+    }
+    final int plus = type.lastIndexOf('+');
+    return plus != -1 && suffixes.contains(type.substring(plus));
+  }
+
+  /**
+   * @return the size of the response body or {@code -1} when it is not known, e.g. for chunked responses
+   */
+  private static long size(HttpServerResponse response) {
+    // responses ended in one go get their content length before the headers are sent
+    final String contentLength = response.headers().get(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentLength);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.parsetools.JsonEvent;
+import io.vertx.core.parsetools.JsonParser;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.HttpException;
+import io.vertx.ext.web.handler.JsonStreamHandler;
+import io.vertx.ext.web.impl.RoutingContextInternal;
+import io.vertx.ext.web.impl.Utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+public class JsonStreamHandlerImpl implements JsonStreamHandler {
+
+  private final boolean streamElements;
+  private long bodyLimit = DEFAULT_BODY_LIMIT;
+
+  public JsonStreamHandlerImpl(boolean streamElements) {
+    this.streamElements = streamElements;
+  }
+
+  @Override
+  public JsonStreamHandler setBodyLimit(long bodyLimit) {
+    this.bodyLimit = bodyLimit;
+    return this;
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    final RoutingContextInternal ctx = (RoutingContextInternal) context;
+    // the body can only be read once, e.g. not again on reroute
+    if (ctx.seenHandler(RoutingContextInternal.BODY_HANDLER)) {
+      context.next();
+      return;
+    }
+
+    final HttpServerRequest request = context.request();
+    final String contentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
+    if (contentType == null) {
+      context.next();
+      return;
+    }
+    final boolean ndjson = isNdjsonContentType(contentType);
+    if (!ndjson && !Utils.isJsonContentType(contentType)) {
+      context.next();
+      return;
+    }
+
+    // the body is consumed here, a body handler further down the route must not wait for it
+    ctx.visitHandler(RoutingContextInternal.BODY_HANDLER);
+
+    if (bodyLimit != -1 && contentLength(request) > bodyLimit) {
+      context.fail(413);
+      return;
+    }
+
+    // objects are always built as a whole, top level arrays are only built as a whole when they are the values
+    final JsonParser parser = JsonParser.newParser(new BodyStream(context, bodyLimit)).objectValueMode();
+    if (ndjson || !streamElements) {
+      parser.arrayValueMode();
+    }
+
+    if (streamElements) {
+      context.put(JSON_ELEMENTS, new ElementStream(context, parser, ndjson));
+      context.next();
+    } else {
+      parseBody(context, parser, ndjson);
+    }
+  }
+
+  private static void parseBody(RoutingContext context, JsonParser parser, boolean ndjson) {
+    final List<Object> values = new ArrayList<>();
+    // with both value modes every top level value is a single event
+    parser.handler(event -> values.add(event.value()));
+    parser.exceptionHandler(err -> fail(context, err));
+    parser.endHandler(v -> {
+      if (context.failed()) {
+        return;
+      }
+      if (ndjson) {
+        context.put(JSON_BODY, new JsonArray(values));
+      } else if (values.size() > 1) {
+        context.fail(400, new DecodeException("Unexpected JSON value after the body"));
+        return;
+      } else if (values.size() == 1) {
+        context.put(JSON_BODY, values.get(0));
+      }
+      context.next();
+    });
+  }
+
+  private static void fail(RoutingContext context, Throwable err) {
+    // the body limit already failed the context
+    if (!context.failed()) {
+      context.fail(400, err);
+    }
+  }
+
+  private static boolean isNdjsonContentType(String contentType) {
+    return contentType.contains("application/x-ndjson") || contentType.contains("application/ndjson");
+  }
+
+  private static long contentLength(HttpServerRequest request) {
+    final String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+    if (contentLength == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentLength);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * The request body, limited in size.
+   */
+  private static final class BodyStream implements ReadStream<Buffer> {
+
+    private final RoutingContext context;
+    private final HttpServerRequest request;
+    private final long bodyLimit;
+
+    private Handler<Throwable> exceptionHandler;
+    private long size;
+    private boolean failed;
+
+    BodyStream(RoutingContext context, long bodyLimit) {
+      this.context = context;
+      this.request = context.request();
+      this.bodyLimit = bodyLimit;
+    }
+
+    @Override
+    public ReadStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+      exceptionHandler = handler;
+      request.exceptionHandler(handler);
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> handler(Handler<Buffer> handler) {
+      if (handler == null) {
+        request.handler(null);
+        return this;
+      }
+      request.handler(buff -> {
+        if (failed) {
+          return;
+        }
+        size += buff.length();
+        if (bodyLimit != -1 && size > bodyLimit) {
+          failed = true;
+          context.fail(413);
+          // let the consumer of the stream know it will not end
+          if (exceptionHandler != null) {
+            exceptionHandler.handle(new HttpException(413));
+          }
+          return;
+        }
+        handler.handle(buff);
+      });
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> pause() {
+      request.pause();
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> resume() {
+      request.resume();
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> fetch(long amount) {
+      request.fetch(amount);
+      return this;
+    }
+
+    @Override
+    public ReadStream<Buffer> endHandler(Handler<Void> endHandler) {
+      request.endHandler(endHandler == null ? null : v -> {
+        if (!failed) {
+          endHandler.handle(v);
+        }
+      });
+      return this;
+    }
+  }
+
+  /**
+   * The stream of elements of the body: the items of a top level array, the single top level value otherwise, or
+   * every value of a newline delimited body.
+   */
+  private static final class ElementStream implements ReadStream<Object> {
+
+    private final RoutingContext context;
+    private final JsonParser parser;
+    private final boolean ndjson;
+    // arrays nested in the top level array, they are built from the parser events
+    private final Deque<JsonArray> nested = new ArrayDeque<>();
+
+    private Handler<Object> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+    private boolean paused;
+    private boolean inArray;
+    private boolean done;
+    private boolean failed;
+
+    ElementStream(RoutingContext context, JsonParser parser, boolean ndjson) {
+      this.context = context;
+      this.parser = parser;
+      this.ndjson = ndjson;
+      // nothing is read until the application sets a handler
+      parser.pause();
+      parser.handler(this::handleEvent);
+      parser.exceptionHandler(this::handleException);
+      parser.endHandler(v -> {
+        if (failed || context.failed()) {
+          return;
+        }
+        if (inArray) {
+          handleException(new DecodeException("Unexpected end of the JSON array"));
+          return;
+        }
+        final Handler<Void> h = endHandler;
+        if (h != null) {
+          h.handle(null);
+        }
+      });
+    }
+
+    private void handleEvent(JsonEvent event) {
+      if (failed) {
+        return;
+      }
+      switch (event.type()) {
+        case START_ARRAY:
+          if (!inArray && !done) {
+            inArray = true;
+          } else if (inArray) {
+            nested.push(new JsonArray());
+          } else {
+            break;
+          }
+          return;
+        case END_ARRAY:
+          if (!nested.isEmpty()) {
+            element(nested.pop());
+          } else if (inArray) {
+            inArray = false;
+            done = true;
+          } else {
+            break;
+          }
+          return;
+        case VALUE:
+          if (ndjson || inArray) {
+            element(event.value());
+            return;
+          }
+          if (!done) {
+            done = true;
+            element(event.value());
+            return;
+          }
+          break;
+        default:
+          break;
+      }
+      handleException(new DecodeException("Unexpected JSON value after the body"));
+    }
+
+    private void element(Object value) {
+      if (!nested.isEmpty()) {
+        nested.peek().add(value);
+        return;
+      }
+      final Handler<Object> h = handler;
+      if (h != null) {
+        h.handle(value);
+      }
+    }
+
+    private void handleException(Throwable err) {
+      if (failed) {
+        return;
+      }
+      failed = true;
+      final Handler<Throwable> h = exceptionHandler;
+      if (h != null) {
+        h.handle(err);
+      } else {
+        fail(context, err);
+      }
+    }
+
+    @Override
+    public ReadStream<Object> exceptionHandler(Handler<Throwable> handler) {
+      exceptionHandler = handler;
+      return this;
+    }
+
+    @Override
+    public ReadStream<Object> handler(Handler<Object> handler) {
+      this.handler = handler;
+      if (handler != null && !paused) {
+        parser.resume();
+      }
+      return this;
+    }
+
+    @Override
+    public ReadStream<Object> pause() {
+      paused = true;
+      parser.pause();
+      return this;
+    }
+
+    @Override
+    public ReadStream<Object> resume() {
+      paused = false;
+      parser.resume();
+      return this;
+    }
+
+    @Override
+    public ReadStream<Object> fetch(long amount) {
+      parser.fetch(amount);
+      return this;
+    }
+
+    @Override
+    public ReadStream<Object> endHandler(Handler<Void> endHandler) {
+      this.endHandler = endHandler;
+      return this;
+    }
+  }
+}
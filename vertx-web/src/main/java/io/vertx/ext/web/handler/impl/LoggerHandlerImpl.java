@@ -16,6 +16,7 @@
 
 package io.vertx.ext.web.handler.impl;
 
+import io.netty.util.concurrent.FastThreadLocal;
 import io.vertx.core.MultiMap;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
@@ -49,6 +50,14 @@ public class LoggerHandlerImpl implements LoggerHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(LoggerHandlerImpl.class);
 
+  // log lines are built in a per thread builder, handlers always log from the request thread
+  private static final FastThreadLocal<StringBuilder> BUILDER = new FastThreadLocal<StringBuilder>() {
+    @Override
+    protected StringBuilder initialValue() {
+      return new StringBuilder(256);
+    }
+  };
+
   /** log before request or after
    */
   private final boolean immediate;
@@ -59,6 +68,8 @@ public class LoggerHandlerImpl implements LoggerHandler {
 
   private Function<HttpServerRequest, String> customFormatter;
   private LoggerFormatter logFormatter;
+  // when set, lines are written to a file instead of the logger
+  private AccessLogFile logFile;
 
   public LoggerHandlerImpl(boolean immediate, LoggerFormat format) {
     this.immediate = immediate;
@@ -106,7 +117,8 @@ public class LoggerHandlerImpl implements LoggerHandler {
 
     final MultiMap headers = request.headers();
     int status = request.response().getStatusCode();
-    String message = null;
+    final StringBuilder message = BUILDER.get();
+    message.setLength(0);
 
     switch (format) {
       case DEFAULT:
@@ -116,49 +128,78 @@ public class LoggerHandlerImpl implements LoggerHandler {
         referrer = referrer == null ? "-" : referrer;
         userAgent = userAgent == null ? "-" : userAgent;
 
-        message = String.format("%s - - [%s] \"%s %s %s\" %d %d \"%s\" \"%s\"",
-          remoteClient,
-          Utils.formatRFC1123DateTime(timestamp),
-          method,
-          uri,
-          versionFormatted,
-          status,
-          contentLength,
-          referrer,
-          userAgent);
+        // %s - - [%s] "%s %s %s" %d %d "%s" "%s"
+        message
+          .append(remoteClient)
+          .append(" - - [")
+          .append(Utils.formatRFC1123DateTime(timestamp))
+          .append("] \"")
+          .append(method)
+          .append(' ')
+          .append(uri)
+          .append(' ')
+          .append(versionFormatted)
+          .append("\" ")
+          .append(status)
+          .append(' ')
+          .append(contentLength)
+          .append(" \"")
+          .append(referrer)
+          .append("\" \"")
+          .append(userAgent)
+          .append('"');
         break;
       case SHORT:
-        message = String.format("%s - %s %s %s %d %d - %d ms",
-          remoteClient,
-          method,
-          uri,
-          versionFormatted,
-          status,
-          contentLength,
-          (System.currentTimeMillis() - timestamp));
+        // %s - %s %s %s %d %d - %d ms
+        message
+          .append(remoteClient)
+          .append(" - ")
+          .append(method)
+          .append(' ')
+          .append(uri)
+          .append(' ')
+          .append(versionFormatted)
+          .append(' ')
+          .append(status)
+          .append(' ')
+          .append(contentLength)
+          .append(" - ")
+          .append(System.currentTimeMillis() - timestamp)
+          .append(" ms");
         break;
       case TINY:
-        message = String.format("%s %s %d %d - %d ms",
-          method,
-          uri,
-          status,
-          contentLength,
-          (System.currentTimeMillis() - timestamp));
+        // %s %s %d %d - %d ms
+        message
+          .append(method)
+          .append(' ')
+          .append(uri)
+          .append(' ')
+          .append(status)
+          .append(' ')
+          .append(contentLength)
+          .append(" - ")
+          .append(System.currentTimeMillis() - timestamp)
+          .append(" ms");
         break;
       case CUSTOM:
         try {
           if (logFormatter != null) {
-            message = logFormatter.format(context, (System.currentTimeMillis() - timestamp));
+            message.append(logFormatter.format(context, (System.currentTimeMillis() - timestamp)));
           } else {
-            message = customFormatter.apply(request);
+            message.append(customFormatter.apply(request));
           }
         } catch (RuntimeException e) {
           // if an error happens at the user side
           // log it instead
-          message = e.getMessage();
+          message.append(e.getMessage());
         }
     }
-    doLog(status, message);
+
+    if (logFile != null) {
+      logFile.append(context.vertx(), message);
+    } else {
+      doLog(status, message.toString());
+    }
   }
 
   protected void doLog(int status, String message) {
@@ -201,6 +242,12 @@ public class LoggerHandlerImpl implements LoggerHandler {
     return this;
   }
 
+  @Override
+  public LoggerHandler logFile(String path) {
+    this.logFile = new AccessLogFile(path);
+    return this;
+  }
+
   @Override
   public LoggerHandler customFormatter(LoggerFormatter formatter) {
     if (format != LoggerFormat.CUSTOM) {
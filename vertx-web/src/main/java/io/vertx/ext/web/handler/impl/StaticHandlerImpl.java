@@ -19,29 +19,47 @@ package io.vertx.ext.web.handler.impl;
 import static io.netty.handler.codec.http.HttpResponseStatus.FORBIDDEN;
 import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
 import static io.netty.handler.codec.http.HttpResponseStatus.PARTIAL_CONTENT;
+import static io.netty.handler.codec.http.HttpResponseStatus.PRECONDITION_FAILED;
 import static io.netty.handler.codec.http.HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
 import io.vertx.core.file.FileProps;
 import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
@@ -49,17 +67,20 @@ import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.http.HttpVersion;
 import io.vertx.core.http.impl.HttpUtils;
 import io.vertx.core.http.impl.MimeMapping;
+import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.net.impl.URIDecoder;
 import io.vertx.ext.web.Http2PushMapping;
 import io.vertx.ext.web.MIMEHeader;
+import io.vertx.ext.web.ParsedHeaderValue;
 import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.ETagMode;
 import io.vertx.ext.web.handler.FileSystemAccess;
 import io.vertx.ext.web.handler.StaticHandler;
-import io.vertx.ext.web.impl.LRUCache;
 import io.vertx.ext.web.impl.ParsableMIMEValue;
+import io.vertx.ext.web.impl.TinyLFUCache;
 import io.vertx.ext.web.impl.Utils;
 
 /**
@@ -89,12 +110,22 @@ public class StaticHandlerImpl implements StaticHandler {
   private boolean allowRootFileSystemAccess = DEFAULT_ROOT_FILESYSTEM_ACCESS;
   private boolean sendVaryHeader = DEFAULT_SEND_VARY_HEADER;
   private String defaultContentEncoding = Charset.defaultCharset().name();
+  private boolean precompressedAssets = DEFAULT_PRECOMPRESSED_ASSETS;
+  private ETagMode etagMode = DEFAULT_ETAG_MODE;
+  private volatile boolean watchWebRoot;
+  // started on the first request, closed with the context which started it
+  private volatile WebRootWatcher.Subscription watcher;
+  // a watcher is being started on a worker thread, guarded by this
+  private boolean watching;
+  // incremented when the watcher is stopped, so a watcher started for a previous web root is dropped, guarded by this
+  private int watchGeneration;
 
   private Set<String> compressedMediaTypes = Collections.emptySet();
   private Set<String> compressedFileSuffixes = Collections.emptySet();
 
   private final FSTune tune = new FSTune();
   private final FSPropsCache cache = new FSPropsCache();
+  private final FSContentCache contentCache = new FSContentCache();
 
   /**
    * Constructor called by static factory method
@@ -149,8 +180,8 @@ public class StaticHandlerImpl implements StaticHandler {
     MultiMap headers = request.response().headers();
 
     if (cache.enabled()) {
-      // We use cache-control and last-modified
-      // We *do not use* etags and expires (since they do the same thing - redundant)
+      // We use cache-control and last-modified, etags are sent when enabled
+      // We *do not use* expires (since it does the same thing - redundant)
       Utils.addToMapIfAbsent(headers, HttpHeaders.CACHE_CONTROL, "public, immutable, max-age=" + maxAgeSeconds);
       Utils.addToMapIfAbsent(headers, HttpHeaders.LAST_MODIFIED, Utils.formatRFC1123DateTime(props.lastModifiedTime()));
       // We send the vary header (for intermediate caches)
@@ -165,6 +196,9 @@ public class StaticHandlerImpl implements StaticHandler {
 
   @Override
   public void handle(RoutingContext context) {
+    if (watchWebRoot && watcher == null) {
+      watch(context);
+    }
     HttpServerRequest request = context.request();
     if (request.method() != HttpMethod.GET && request.method() != HttpMethod.HEAD) {
       if (LOG.isTraceEnabled())
@@ -213,7 +247,8 @@ public class StaticHandlerImpl implements StaticHandler {
       }
     }
 
-    // Look in cache
+    // Look in cache, entries read before an invalidation are not stored
+    final long generation = cache.generation();
     final CacheEntry entry = cache.get(path);
 
     if (entry != null) {
@@ -230,12 +265,20 @@ public class StaticHandlerImpl implements StaticHandler {
 
         // a hit needs to be verified for freshness
         final long lastModified = Utils.secondsFactor(entry.props.lastModifiedTime());
+        final String etag = knownETag(entry);
 
-        if (Utils.fresh(context, lastModified)) {
-          context.response()
-              .setStatusCode(NOT_MODIFIED.code())
-              .end();
-          return;
+        // a strong etag that was not computed yet is resolved later
+        if (etagMode == ETagMode.NONE || etag != null) {
+          final int status = preconditions(context, lastModified, etag);
+          if (status != 0) {
+            failPrecondition(context, status);
+            return;
+          }
+          if (watcher != null) {
+            // the watcher invalidates the entry when the file changes, no need to verify the file system
+            sendFile(context, fileSystem, entry.file, entry.props);
+            return;
+          }
         }
       }
     }
@@ -269,7 +312,7 @@ public class StaticHandlerImpl implements StaticHandler {
           // file does not exist, continue...
           if (!exists.result()) {
             if (cache.enabled()) {
-              cache.put(path, null);
+              cache.put(path, null, null, generation);
             }
             context.next();
             return;
@@ -289,7 +332,7 @@ public class StaticHandlerImpl implements StaticHandler {
                 if (index) {
                   // file does not exist (well it exists but it's a directory), continue...
                   if (cache.enabled()) {
-                    cache.put(path, null);
+                    cache.put(path, null, null, generation);
                   }
                   context.next();
                 } else {
@@ -299,15 +342,27 @@ public class StaticHandlerImpl implements StaticHandler {
                   sendDirectory(context, fileSystem, path, localFile);
                 }
               } else {
-                if (cache.enabled()) {
-                  cache.put(path, fprops);
+                final CacheEntry cached = cache.put(path, localFile, fprops, generation);
+                if (cached != null && entry != null && entry.isSameFile(fprops)) {
+                  // the file did not change, keep the etag or its computation in progress
+                  cached.inheritETag(entry);
+                }
 
-                  if (Utils.fresh(context, Utils.secondsFactor(fprops.lastModifiedTime()))) {
-                    context.response().setStatusCode(NOT_MODIFIED.code()).end();
+                etag(fileSystem, localFile, fprops, cached, etagResult -> {
+                  if (etagResult.failed()) {
+                    context.fail(etagResult.cause());
                     return;
                   }
-                }
-                sendFile(context, fileSystem, localFile, fprops);
+                  final String etag = etagResult.result();
+                  if (cache.enabled() || etag != null) {
+                    final int status = preconditions(context, Utils.secondsFactor(fprops.lastModifiedTime()), etag);
+                    if (status != 0) {
+                      failPrecondition(context, status);
+                      return;
+                    }
+                  }
+                  sendFile(context, fileSystem, localFile, fprops);
+                });
               }
             } else {
               context.fail(res.cause());
@@ -316,6 +371,168 @@ public class StaticHandlerImpl implements StaticHandler {
         });
   }
 
+  /**
+   * Returns the ETag of a cached file if it is known without reading the file.
+   */
+  private String knownETag(CacheEntry entry) {
+    switch (etagMode) {
+      case WEAK:
+        return weakETag(entry.props);
+      case STRONG:
+        return entry.etag;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Resolves the ETag of the file, {@code null} when ETags are disabled. Strong ETags are kept in the cache entry,
+   * without an entry to keep it the weak ETag is used so that the file is not hashed on every request. The strong
+   * ETag is computed in the background, the weak ETag is used until it is known.
+   */
+  private void etag(FileSystem fileSystem, String file, FileProps props, CacheEntry entry, Handler<AsyncResult<String>> handler) {
+    switch (etagMode) {
+      case WEAK:
+        handler.handle(Future.succeededFuture(weakETag(props)));
+        break;
+      case STRONG:
+        if (entry == null) {
+          handler.handle(Future.succeededFuture(weakETag(props)));
+        } else if (entry.etag != null) {
+          handler.handle(Future.succeededFuture(entry.etag));
+        } else {
+          // concurrent requests share the computation, large files would delay the response for too long
+          entry.computeETag(() -> {
+            final Promise<String> promise = Promise.promise();
+            strongETag(fileSystem, file, promise);
+            return promise.future();
+          });
+          handler.handle(Future.succeededFuture(weakETag(props)));
+        }
+        break;
+      default:
+        handler.handle(Future.succeededFuture());
+    }
+  }
+
+  private static String weakETag(FileProps props) {
+    return "W/\"" + Long.toHexString(props.size()) + "-" + Long.toHexString(props.lastModifiedTime()) + '"';
+  }
+
+  private static void strongETag(FileSystem fileSystem, String file, Handler<AsyncResult<String>> handler) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      handler.handle(Future.failedFuture(e));
+      return;
+    }
+
+    fileSystem.open(file, new OpenOptions().setRead(true).setWrite(false).setCreate(false), open -> {
+      if (open.failed()) {
+        handler.handle(Future.failedFuture(open.cause()));
+        return;
+      }
+      final AsyncFile asyncFile = open.result();
+      asyncFile
+        .exceptionHandler(err -> {
+          asyncFile.close();
+          handler.handle(Future.failedFuture(err));
+        })
+        .endHandler(v -> {
+          asyncFile.close();
+          // 128 bits are enough to tell contents apart
+          final byte[] hash = Arrays.copyOf(digest.digest(), 16);
+          handler.handle(Future.succeededFuture('"' + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + '"'));
+        })
+        .handler(buffer -> digest.update(buffer.getByteBuf().nioBuffer()));
+    });
+  }
+
+  /**
+   * Evaluates the conditional headers of a GET or HEAD request.
+   *
+   * @return the status code to reply or {@code 0} if the file must be sent
+   */
+  private int preconditions(RoutingContext context, long lastModified, String etag) {
+    if (etag == null) {
+      return Utils.fresh(context, lastModified) ? NOT_MODIFIED.code() : 0;
+    }
+
+    final HttpServerRequest request = context.request();
+    final MultiMap headers = context.response().headers();
+    headers.set(HttpHeaders.ETAG, etag);
+
+    final String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+    if (ifMatch != null && matchETag(ifMatch, etag, true) == null) {
+      return PRECONDITION_FAILED.code();
+    }
+
+    final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch == null) {
+      return Utils.fresh(context, lastModified) ? NOT_MODIFIED.code() : 0;
+    }
+    // If-Modified-Since is ignored when If-None-Match is present
+    final String matched = matchETag(ifNoneMatch, etag, false);
+    if (matched == null) {
+      return 0;
+    }
+    // the client may hold a precompressed variant
+    headers.set(HttpHeaders.ETAG, matched);
+    return NOT_MODIFIED.code();
+  }
+
+  private static void failPrecondition(RoutingContext context, int status) {
+    if (status == NOT_MODIFIED.code()) {
+      context.response()
+          .setStatusCode(NOT_MODIFIED.code())
+          .end();
+    } else {
+      context.fail(status);
+    }
+  }
+
+  /**
+   * Returns the entity tag of the list that matches the ETag or {@code null}. The tags of the precompressed variants
+   * match the ETag of the file they were compressed from.
+   */
+  private String matchETag(String list, String etag, boolean strong) {
+    final String opaque = opaqueTag(etag);
+    int start = 0;
+    while (start < list.length()) {
+      int end = list.indexOf(',', start);
+      if (end == -1) {
+        end = list.length();
+      }
+      final String tag = list.substring(start, end).trim();
+      start = end + 1;
+
+      if ("*".equals(tag)) {
+        return etag;
+      }
+      if (strong && (tag.startsWith("W/") || etag.startsWith("W/"))) {
+        // weak tags never match a strong comparison
+        continue;
+      }
+      final String candidate = opaqueTag(tag);
+      if (candidate.equals(opaque)) {
+        return tag;
+      }
+      if (precompressedAssets) {
+        for (Precompressed encoding : Precompressed.values()) {
+          if (candidate.equals(encoding.etag(opaque))) {
+            return tag;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String opaqueTag(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+
   /**
    * sibling means that we are being upgraded from a directory to a index
    */
@@ -360,59 +577,117 @@ public class StaticHandlerImpl implements StaticHandler {
     }
   }
 
-  private static final Pattern RANGE = Pattern.compile("^bytes=(\\d+)-(\\d*)$");
+  // cache keys of the precompressed variants, request paths always start with a slash
+  private static final String PRECOMPRESSED_KEY = "precompressed:";
 
   private void sendFile(RoutingContext context, FileSystem fileSystem, String file, FileProps fileProps) {
+    if (precompressedAssets) {
+      // the response depends on the accepted encodings even when the file is sent as is
+      Utils.appendToMapIfAbsent(context.response().headers(), HttpHeaders.VARY, ",", "accept-encoding");
+      // ranges are always computed over the requested file
+      if (!rangeSupport || context.request().getHeader("Range") == null) {
+        final Precompressed[] encodings = Precompressed.accepted(context.parsedHeaders().acceptEncoding());
+        if (encodings.length > 0) {
+          sendPrecompressed(context, fileSystem, file, fileProps, encodings, 0);
+          return;
+        }
+      }
+    }
+    sendFile(context, fileSystem, file, fileProps, null, null);
+  }
+
+  /**
+   * Sends the first precompressed variant of the file that exists, or the file itself if none exists.
+   */
+  private void sendPrecompressed(RoutingContext context, FileSystem fileSystem, String file, FileProps fileProps, Precompressed[] encodings, int index) {
+    if (index == encodings.length) {
+      sendFile(context, fileSystem, file, fileProps, null, null);
+      return;
+    }
+
+    final Precompressed encoding = encodings[index];
+    final String key = PRECOMPRESSED_KEY + file + encoding.suffix;
+    final long generation = cache.generation();
+    final CacheEntry entry = cache.get(key);
+
+    if (entry != null && (filesReadOnly || !entry.isOutOfDate())) {
+      if (encoding.isVariantOf(entry.props, fileProps)) {
+        sendFile(context, fileSystem, file, fileProps, encoding, entry.props);
+      } else {
+        sendPrecompressed(context, fileSystem, file, fileProps, encodings, index + 1);
+      }
+      return;
+    }
+
+    getFileProps(fileSystem, file + encoding.suffix, res -> {
+      // a missing variant is cached too, so the lookup is not repeated on every request
+      final FileProps variantProps = res.succeeded() ? res.result() : null;
+      cache.put(key, file + encoding.suffix, variantProps, generation);
+      if (encoding.isVariantOf(variantProps, fileProps)) {
+        sendFile(context, fileSystem, file, fileProps, encoding, variantProps);
+      } else {
+        sendPrecompressed(context, fileSystem, file, fileProps, encodings, index + 1);
+      }
+    });
+  }
+
+  private void sendFile(RoutingContext context, FileSystem fileSystem, String file, FileProps fileProps, Precompressed encoding, FileProps encodedProps) {
     final HttpServerRequest request = context.request();
     final HttpServerResponse response = context.response();
 
-    Long offset = null;
-    Long end = null;
-    MultiMap headers = null;
+    long[] ranges = null;
+    String rangeContentType = null;
+    String boundary = null;
 
     if (response.closed())
       return;
 
     if (rangeSupport) {
-      // check if the client is making a range request
-      String range = request.getHeader("Range");
-      // end byte is length - 1
-      end = fileProps.size() - 1;
-
-      if (range != null) {
-        Matcher m = RANGE.matcher(range);
-        if (m.matches()) {
-          try {
-            String part = m.group(1);
-            // offset cannot be empty
-            offset = Long.parseLong(part);
-            // offset must fall inside the limits of the file
-            if (offset < 0 || offset >= fileProps.size()) {
-              throw new IndexOutOfBoundsException();
-            }
-            // length can be empty
-            part = m.group(2);
-            if (part != null && part.length() > 0) {
-              // ranges are inclusive
-              end = Math.min(end, Long.parseLong(part));
-              // end offset must not be smaller than start offset
-              if (end < offset) {
-                throw new IndexOutOfBoundsException();
-              }
-            }
-          } catch (NumberFormatException | IndexOutOfBoundsException e) {
-            context.response().putHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileProps.size());
-            context.fail(REQUESTED_RANGE_NOT_SATISFIABLE.code());
-            return;
-          }
+      final long size = encoding == null ? fileProps.size() : encodedProps.size();
+      // check if the client is making a range request, ranges are only defined for GET
+      final String range = request.method() == HttpMethod.GET ? request.getHeader("Range") : null;
+
+      if (range != null && ifRange(request, response.headers().get(HttpHeaders.ETAG), fileProps.lastModifiedTime())) {
+        // a null result means the header is ignored and the whole file is sent
+        ranges = ByteRanges.parse(range, size);
+        if (ranges != null && ranges.length == 0) {
+          context.response().putHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+          context.fail(REQUESTED_RANGE_NOT_SATISFIABLE.code());
+          return;
         }
       }
 
       // notify client we support range requests
-      headers = response.headers();
+      final MultiMap headers = response.headers();
       headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
-      // send the content length even for HEAD requests
-      headers.set(HttpHeaders.CONTENT_LENGTH, Long.toString(end + 1 - (offset == null ? 0 : offset)));
+
+      if (ranges == null) {
+        // send the content length even for HEAD requests
+        headers.set(HttpHeaders.CONTENT_LENGTH, Long.toString(size));
+      } else {
+        // guess content type
+        rangeContentType = MimeMapping.getMimeTypeForFilename(file);
+        if (rangeContentType != null && rangeContentType.startsWith("text")) {
+          rangeContentType = rangeContentType + ";charset=" + defaultContentEncoding;
+        }
+        if (ranges.length == 2) {
+          // must return content range
+          headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + ranges[0] + "-" + ranges[1] + "/" + size);
+          headers.set(HttpHeaders.CONTENT_LENGTH, Long.toString(ranges[1] + 1 - ranges[0]));
+        } else {
+          boundary = Long.toHexString(ThreadLocalRandom.current().nextLong()) + Long.toHexString(System.nanoTime());
+          headers.set(HttpHeaders.CONTENT_LENGTH, Long.toString(MultipartRanges.contentLength(ranges, size, rangeContentType, boundary)));
+        }
+      }
+    }
+
+    if (encoding != null) {
+      response.putHeader(HttpHeaders.CONTENT_ENCODING, encoding.encoding);
+      // the variant is a different representation
+      final String etag = response.headers().get(HttpHeaders.ETAG);
+      if (etag != null) {
+        response.putHeader(HttpHeaders.ETAG, encoding.etag(etag));
+      }
     }
 
     writeCacheHeaders(request, fileProps);
@@ -420,34 +695,38 @@ public class StaticHandlerImpl implements StaticHandler {
     if (request.method() == HttpMethod.HEAD) {
       response.end();
     } else {
-      if (rangeSupport && offset != null) {
-        // must return content range
-        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-" + end + "/" + fileProps.size());
+      if (ranges != null) {
         // return a partial response
         response.setStatusCode(PARTIAL_CONTENT.code());
 
-        final long finalOffset = offset;
-        final long finalLength = end + 1 - offset;
-        // guess content type
-        String contentType = MimeMapping.getMimeTypeForFilename(file);
-        if (contentType != null) {
-          if (contentType.startsWith("text")) {
-            response.putHeader(HttpHeaders.CONTENT_TYPE, contentType + ";charset=" + defaultContentEncoding);
-          } else {
-            response.putHeader(HttpHeaders.CONTENT_TYPE, contentType);
+        if (ranges.length == 2) {
+          if (rangeContentType != null) {
+            response.putHeader(HttpHeaders.CONTENT_TYPE, rangeContentType);
           }
+          response.sendFile(file, ranges[0], ranges[1] + 1 - ranges[0], res2 -> {
+            if (res2.failed()) {
+              context.fail(res2.cause());
+            }
+          });
+        } else {
+          response.putHeader(HttpHeaders.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+          final long size = fileProps.size();
+          final String partContentType = rangeContentType;
+          final String partBoundary = boundary;
+          final long[] parts = ranges;
+          fileSystem.open(file, new OpenOptions().setRead(true).setWrite(false).setCreate(false), open -> {
+            if (open.failed()) {
+              context.fail(open.cause());
+              return;
+            }
+            new MultipartRanges(context, open.result(), parts, size, partContentType, partBoundary).start();
+          });
         }
-
-        response.sendFile(file, finalOffset, finalLength, res2 -> {
-          if (res2.failed()) {
-            context.fail(res2.cause());
-          }
-        });
       } else {
         // guess content type
         String extension = getFileExtension(file);
         String contentType = MimeMapping.getMimeTypeForExtension(extension);
-        if (compressedMediaTypes.contains(contentType) || compressedFileSuffixes.contains(extension)) {
+        if (encoding == null && (compressedMediaTypes.contains(contentType) || compressedFileSuffixes.contains(extension))) {
           response.putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
         }
         if (contentType != null) {
@@ -505,12 +784,166 @@ public class StaticHandlerImpl implements StaticHandler {
           response.putHeader("Link", links);
         }
 
+        final String sentFile = encoding == null ? file : file + encoding.suffix;
+        final FileProps sentProps = encoding == null ? fileProps : encodedProps;
+
+        if (contentCache.accepts(sentProps)) {
+          sendContent(context, fileSystem, sentFile, sentProps);
+        } else {
+          response.sendFile(sentFile, res2 -> {
+            if (res2.failed()) {
+              context.fail(res2.cause());
+            }
+          });
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends the file from the content cache, the file is read and cached on a miss.
+   */
+  private void sendContent(RoutingContext context, FileSystem fileSystem, String file, FileProps fileProps) {
+    final Buffer content = contentCache.get(file, fileProps);
+    if (content != null) {
+      context.response().end(content);
+      return;
+    }
+    fileSystem.readFile(file, res -> {
+      if (res.failed()) {
+        context.fail(res.cause());
+        return;
+      }
+      if (res.result().length() != fileProps.size()) {
+        // the file changed since its properties were read, the length is computed again from the file
+        final HttpServerResponse response = context.response();
+        response.headers().remove(HttpHeaders.CONTENT_LENGTH);
         response.sendFile(file, res2 -> {
           if (res2.failed()) {
             context.fail(res2.cause());
           }
         });
+        return;
       }
+      context.response().end(contentCache.put(file, fileProps, res.result()));
+    });
+  }
+
+  /**
+   * Checks the {@code If-Range} precondition, when it fails the whole file is sent instead of the requested ranges.
+   */
+  private static boolean ifRange(HttpServerRequest request, String etag, long lastModified) {
+    final String ifRange = request.getHeader("If-Range");
+    if (ifRange == null) {
+      return true;
+    }
+    final String validator = ifRange.trim();
+    if (validator.startsWith("\"")) {
+      // ranges require a strong comparison
+      return etag != null && !etag.startsWith("W/") && etag.equals(validator);
+    }
+    if (validator.startsWith("W/")) {
+      return false;
+    }
+    // a date only validates when it matches the last modified time exactly
+    final long date = Utils.parseRFC1123DateTime(validator);
+    return date != -1 && date == Utils.secondsFactor(lastModified);
+  }
+
+  /**
+   * Streams several ranges of a file as a {@code multipart/byteranges} body. The ranges are read in small chunks
+   * and written as the response drains, so the file content is never held in memory.
+   */
+  private static final class MultipartRanges {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final RoutingContext context;
+    private final HttpServerResponse response;
+    private final AsyncFile file;
+    private final long[] ranges;
+    private final String[] partHeaders;
+    private final String trailer;
+
+    private int index;
+    private long position;
+
+    MultipartRanges(RoutingContext context, AsyncFile file, long[] ranges, long size, String contentType, String boundary) {
+      this.context = context;
+      this.response = context.response();
+      this.file = file;
+      this.ranges = ranges;
+      this.partHeaders = partHeaders(ranges, size, contentType, boundary);
+      this.trailer = "\r\n--" + boundary + "--\r\n";
+    }
+
+    static long contentLength(long[] ranges, long size, String contentType, String boundary) {
+      // headers are plain ASCII, one char is one byte
+      long length = 0;
+      for (String part : partHeaders(ranges, size, contentType, boundary)) {
+        length += part.length();
+      }
+      for (int i = 0; i < ranges.length; i += 2) {
+        length += ranges[i + 1] + 1 - ranges[i];
+      }
+      return length + boundary.length() + 8;
+    }
+
+    private static String[] partHeaders(long[] ranges, long size, String contentType, String boundary) {
+      final String[] parts = new String[ranges.length / 2];
+      for (int i = 0; i < parts.length; i++) {
+        parts[i] = (i == 0 ? "" : "\r\n") + "--" + boundary + "\r\n" +
+          (contentType == null ? "" : "Content-Type: " + contentType + "\r\n") +
+          "Content-Range: bytes " + ranges[2 * i] + "-" + ranges[2 * i + 1] + "/" + size + "\r\n\r\n";
+      }
+      return parts;
+    }
+
+    void start() {
+      position = ranges[0];
+      response.write(partHeaders[0]);
+      next();
+    }
+
+    private void next() {
+      if (response.closed()) {
+        file.close();
+        return;
+      }
+      if (response.writeQueueFull()) {
+        response.drainHandler(v -> {
+          response.drainHandler(null);
+          next();
+        });
+        return;
+      }
+      if (position > ranges[2 * index + 1]) {
+        if (++index == partHeaders.length) {
+          file.close();
+          response.end(trailer);
+          return;
+        }
+        position = ranges[2 * index];
+        response.write(partHeaders[index]);
+      }
+      final int length = (int) Math.min(CHUNK_SIZE, ranges[2 * index + 1] + 1 - position);
+      file.read(Buffer.buffer(length), 0, position, length, read -> {
+        if (read.failed()) {
+          file.close();
+          context.fail(read.cause());
+          return;
+        }
+        final Buffer chunk = read.result();
+        if (chunk.length() == 0) {
+          // the file was truncated while being sent
+          file.close();
+          context.fail(new IOException("Unexpected end of file"));
+          return;
+        }
+        position += chunk.length();
+        response.write(chunk);
+        next();
+      });
     }
   }
 
@@ -657,6 +1090,114 @@ public class StaticHandlerImpl implements StaticHandler {
     return this;
   }
 
+  @Override
+  public StaticHandler setPrecompressedAssets(boolean precompressedAssets) {
+    this.precompressedAssets = precompressedAssets;
+    return this;
+  }
+
+  @Override
+  public synchronized StaticHandler setWatchWebRoot(boolean watchWebRoot) {
+    unwatch();
+    // the web root is watched from the first request, the watch is then tied to the lifecycle of its context
+    this.watchWebRoot = watchWebRoot;
+    return this;
+  }
+
+  private void watch(RoutingContext context) {
+    final String root;
+    final int generation;
+    synchronized (this) {
+      if (!watchWebRoot || watcher != null || watching) {
+        return;
+      }
+      watching = true;
+      root = webRoot;
+      generation = watchGeneration;
+    }
+    final ContextInternal ctx = (ContextInternal) context.vertx().getOrCreateContext();
+    // walking the web root blocks, until the watcher is ready the cached entries are verified on the file system
+    ctx.<WebRootWatcher.Subscription>executeBlocking(promise -> {
+      final Path dir = Paths.get(root);
+      try {
+        promise.complete(Files.isDirectory(dir) ? WebRootWatcher.subscribe(dir, cache::invalidate) : null);
+      } catch (IOException e) {
+        promise.fail(e);
+      }
+    }, false).onComplete(ar -> watched(ctx, root, generation, ar));
+  }
+
+  private void watched(ContextInternal ctx, String root, int generation, AsyncResult<WebRootWatcher.Subscription> ar) {
+    final WebRootWatcher.Subscription subscription = ar.result();
+    final boolean current;
+    synchronized (this) {
+      current = generation == watchGeneration;
+      if (current) {
+        watching = false;
+        if (subscription != null) {
+          watcher = subscription;
+        } else {
+          watchWebRoot = false;
+        }
+      }
+    }
+    if (!current) {
+      // the web root or the watch setting changed in the meantime
+      if (subscription != null) {
+        subscription.close();
+      }
+      return;
+    }
+    if (ar.failed()) {
+      LOG.warn("Cannot watch the web root: " + root, ar.cause());
+      return;
+    }
+    if (subscription == null) {
+      LOG.warn("The web root is not a directory of the file system, changes will not be watched: " + root);
+      return;
+    }
+    // stopped when the verticle is undeployed or Vert.x is closed, a request from another context watches it again
+    ctx.addCloseHook(completion -> {
+      unwatch(subscription);
+      completion.complete();
+    });
+    // entries cached while the web root was not watched may be stale already
+    cache.invalidate();
+  }
+
+  private synchronized void unwatch() {
+    watchGeneration++;
+    watching = false;
+    if (watcher != null) {
+      unwatch(watcher);
+    }
+  }
+
+  private synchronized void unwatch(WebRootWatcher.Subscription subscription) {
+    subscription.close();
+    if (watcher == subscription) {
+      watcher = null;
+    }
+  }
+
+  @Override
+  public StaticHandler setETagMode(ETagMode etagMode) {
+    this.etagMode = Objects.requireNonNull(etagMode);
+    return this;
+  }
+
+  @Override
+  public StaticHandler setMaxContentCacheSize(long maxContentCacheSize) {
+    contentCache.setMaxSize(maxContentCacheSize);
+    return this;
+  }
+
+  @Override
+  public StaticHandler setMaxCachedFileSize(int maxCachedFileSize) {
+    contentCache.setMaxFileSize(maxCachedFileSize);
+    return this;
+  }
+
   private String getFile(String path, RoutingContext context) {
     String file = webRoot + Utils.pathOffset(path, context);
     if (LOG.isTraceEnabled()) {
@@ -675,6 +1216,8 @@ public class StaticHandlerImpl implements StaticHandler {
       }
     }
     this.webRoot = webRoot;
+    // the new web root is watched from the next request
+    unwatch();
   }
 
   private static final Collection<MIMEHeader> DIRECTORY_LISTING_ACCEPT = Arrays.asList(
@@ -796,14 +1339,92 @@ public class StaticHandlerImpl implements StaticHandler {
     }
   }
 
+  /**
+   * The content encodings of the precompressed files, in the server order of preference.
+   */
+  private enum Precompressed {
+    BROTLI("br", ".br"),
+    GZIP("gzip", ".gz");
+
+    private static final Precompressed[] NONE = {};
+
+    final String encoding;
+    final String suffix;
+
+    Precompressed(String encoding, String suffix) {
+      this.encoding = encoding;
+      this.suffix = suffix;
+    }
+
+    /**
+     * Returns the entity tag of the variant of a file with the given tag.
+     */
+    String etag(String tag) {
+      return tag.substring(0, tag.length() - 1) + "-" + encoding + '"';
+    }
+
+    /**
+     * A variant must be a regular file at least as recent as the file it was compressed from.
+     */
+    boolean isVariantOf(FileProps variantProps, FileProps fileProps) {
+      return variantProps != null && variantProps.isRegularFile() && variantProps.lastModifiedTime() >= fileProps.lastModifiedTime();
+    }
+
+    /**
+     * Returns the accepted encodings by decreasing weight, encodings with the same weight are in the server order.
+     */
+    static Precompressed[] accepted(List<ParsedHeaderValue> acceptEncoding) {
+      if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+        return NONE;
+      }
+      float br = -1;
+      float gzip = -1;
+      float any = -1;
+      for (ParsedHeaderValue value : acceptEncoding) {
+        final String coding = value.value();
+        if ("br".equalsIgnoreCase(coding)) {
+          br = Math.max(br, value.weight());
+        } else if ("gzip".equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+          gzip = Math.max(gzip, value.weight());
+        } else if ("*".equals(coding)) {
+          any = Math.max(any, value.weight());
+        }
+      }
+      // codings not listed are only acceptable through the wildcard
+      if (br < 0) {
+        br = any;
+      }
+      if (gzip < 0) {
+        gzip = any;
+      }
+      if (br > 0 && gzip > 0) {
+        return br >= gzip ? new Precompressed[] { BROTLI, GZIP } : new Precompressed[] { GZIP, BROTLI };
+      }
+      if (br > 0) {
+        return new Precompressed[] { BROTLI };
+      }
+      if (gzip > 0) {
+        return new Precompressed[] { GZIP };
+      }
+      return NONE;
+    }
+  }
+
   private static final class CacheEntry {
     final long createDate = System.currentTimeMillis();
 
     final FileProps props;
+    // the file the properties were read from
+    final String file;
     final long cacheEntryTimeout;
+    // the strong etag of the file, computed once
+    volatile String etag;
+    // the computation of the strong etag in progress, guarded by this
+    private Future<String> hashing;
 
-    private CacheEntry(FileProps props, long cacheEntryTimeout) {
+    private CacheEntry(FileProps props, String file, long cacheEntryTimeout) {
       this.props = props;
+      this.file = file;
       this.cacheEntryTimeout = cacheEntryTimeout;
     }
 
@@ -814,6 +1435,49 @@ public class StaticHandlerImpl implements StaticHandler {
     public boolean isMissing() {
       return props == null;
     }
+
+    /**
+     * Starts the computation of the strong etag unless it is already in progress.
+     */
+    synchronized void computeETag(Supplier<Future<String>> hash) {
+      if (hashing == null) {
+        track(hash.get());
+      }
+    }
+
+    synchronized void inheritETag(CacheEntry other) {
+      etag = other.etag;
+      if (etag == null) {
+        final Future<String> future;
+        synchronized (other) {
+          future = other.hashing;
+        }
+        if (future != null) {
+          track(future);
+        }
+      }
+    }
+
+    private synchronized void track(Future<String> future) {
+      hashing = future;
+      future.onComplete(ar -> {
+        if (ar.succeeded()) {
+          etag = ar.result();
+        } else {
+          LOG.debug("Failed to compute the etag of: " + file, ar.cause());
+          // the next request tries again
+          synchronized (this) {
+            if (hashing == future) {
+              hashing = null;
+            }
+          }
+        }
+      });
+    }
+
+    boolean isSameFile(FileProps other) {
+      return props != null && props.size() == other.size() && props.lastModifiedTime() == other.lastModifiedTime();
+    }
   }
 
   private static class FSTune {
@@ -881,7 +1545,9 @@ public class StaticHandlerImpl implements StaticHandler {
   }
 
   private static class FSPropsCache {
-    private Map<String, CacheEntry> propsCache;
+    private volatile TinyLFUCache<String, CacheEntry> propsCache;
+    // incremented on every invalidation
+    private volatile long generation;
     private long cacheEntryTimeout = DEFAULT_CACHE_ENTRY_TIMEOUT;
     private int maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
 
@@ -914,7 +1580,7 @@ public class StaticHandlerImpl implements StaticHandler {
           propsCache.clear();
         }
         if (enable) {
-          propsCache = new LRUCache<>(maxCacheSize);
+          propsCache = new TinyLFUCache<>(maxCacheSize);
         } else {
           propsCache = null;
         }
@@ -929,24 +1595,153 @@ public class StaticHandlerImpl implements StaticHandler {
     }
 
     private void remove(String path) {
-      if (propsCache != null) {
-        propsCache.remove(path);
+      final TinyLFUCache<String, CacheEntry> cache = propsCache;
+      if (cache != null) {
+        cache.remove(path);
       }
     }
 
     CacheEntry get(String key) {
-      if (propsCache != null) {
-        return propsCache.get(key);
+      final TinyLFUCache<String, CacheEntry> cache = propsCache;
+      if (cache != null) {
+        return cache.get(key);
       }
 
       return null;
     }
 
-    void put(String path, FileProps props) {
-      if (propsCache != null) {
-        CacheEntry now = new CacheEntry(props, cacheEntryTimeout);
-        propsCache.put(path, now);
+    /**
+     * Caches the properties read from the file, unless the cache was invalidated since the given generation.
+     */
+    CacheEntry put(String path, String file, FileProps props, long generation) {
+      final TinyLFUCache<String, CacheEntry> cache = propsCache;
+      if (cache != null && generation == this.generation) {
+        CacheEntry now = new CacheEntry(props, file, cacheEntryTimeout);
+        cache.put(path, now);
+        if (generation != this.generation) {
+          // invalidated while storing
+          cache.remove(path);
+          return null;
+        }
+        return now;
       }
+      return null;
+    }
+
+    long generation() {
+      return generation;
+    }
+
+    /**
+     * Removes all the entries, the properties being read are not stored either.
+     */
+    synchronized void invalidate() {
+      generation++;
+      final TinyLFUCache<String, CacheEntry> cache = propsCache;
+      if (cache != null) {
+        cache.clear();
+      }
+    }
+  }
+
+  /**
+   * Keeps the content of small files in direct memory. The memory is owned by the JVM and not released explicitly,
+   * an evicted content can still be in use by a response being written.
+   */
+  private static class FSContentCache {
+    private final Map<String, CachedContent> contents = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private volatile long maxSize = DEFAULT_MAX_CONTENT_CACHE_SIZE;
+    private volatile int maxFileSize = DEFAULT_MAX_CACHED_FILE_SIZE;
+
+    void setMaxSize(long maxSize) {
+      if (maxSize < 0) {
+        throw new IllegalArgumentException("maxContentCacheSize must be >= 0");
+      }
+      this.maxSize = maxSize;
+      evict();
+    }
+
+    void setMaxFileSize(int maxFileSize) {
+      if (maxFileSize < 1) {
+        throw new IllegalArgumentException("maxCachedFileSize must be >= 1");
+      }
+      this.maxFileSize = maxFileSize;
+    }
+
+    boolean accepts(FileProps props) {
+      final long fileSize = props.size();
+      return maxSize > 0 && fileSize <= maxFileSize && fileSize <= maxSize;
+    }
+
+    /**
+     * Returns the cached content if it was read from a file with the same properties.
+     */
+    Buffer get(String file, FileProps props) {
+      final CachedContent cached = contents.get(file);
+      if (cached == null) {
+        return null;
+      }
+      if (cached.lastModified != props.lastModifiedTime() || cached.content.capacity() != props.size()) {
+        // the file was modified
+        remove(file, cached);
+        return null;
+      }
+      cached.referenced = true;
+      return cached.buffer();
+    }
+
+    Buffer put(String file, FileProps props, Buffer buffer) {
+      final ByteBuffer direct = ByteBuffer.allocateDirect(buffer.length());
+      direct.put(buffer.getByteBuf().nioBuffer());
+      direct.flip();
+      final CachedContent cached = new CachedContent(Unpooled.wrappedBuffer(direct), props.lastModifiedTime());
+      final CachedContent previous = contents.put(file, cached);
+      size.addAndGet(cached.content.capacity() - (previous == null ? 0 : previous.content.capacity()));
+      if (size.get() > maxSize) {
+        evict();
+      }
+      return cached.buffer();
+    }
+
+    private void remove(String file, CachedContent cached) {
+      if (contents.remove(file, cached)) {
+        size.addAndGet(-cached.content.capacity());
+      }
+    }
+
+    /**
+     * Second chance eviction, contents used since the previous sweep are kept for another sweep.
+     */
+    private synchronized void evict() {
+      for (int sweep = 0; sweep < 2 && size.get() > maxSize; sweep++) {
+        final Iterator<Map.Entry<String, CachedContent>> it = contents.entrySet().iterator();
+        while (it.hasNext() && size.get() > maxSize) {
+          final Map.Entry<String, CachedContent> kv = it.next();
+          final CachedContent cached = kv.getValue();
+          if (cached.referenced) {
+            cached.referenced = false;
+          } else {
+            remove(kv.getKey(), cached);
+          }
+        }
+      }
+    }
+  }
+
+  private static final class CachedContent {
+    final ByteBuf content;
+    final long lastModified;
+    volatile boolean referenced;
+
+    CachedContent(ByteBuf content, long lastModified) {
+      this.content = content;
+      this.lastModified = lastModified;
+    }
+
+    Buffer buffer() {
+      // each response gets its own indexes, and must not release the shared content
+      return Buffer.buffer(Unpooled.unreleasableBuffer(content.duplicate()));
     }
   }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler.impl;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a directory tree of the file system and notifies every batch of changes, new sub directories are watched
+ * as they are created. Notifications are delivered on a daemon thread owned by the watcher.
+ * <p>
+ * A single watcher is shared by all the subscriptions to the same directory, it is closed when the last subscription
+ * is closed.
+ */
+final class WebRootWatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebRootWatcher.class);
+
+  // guarded by itself
+  private static final Map<Path, WebRootWatcher> WATCHERS = new HashMap<>();
+
+  private final Path root;
+  private final WatchService watchService;
+  private final Set<Subscription> subscriptions = new CopyOnWriteArraySet<>();
+  private volatile boolean closed;
+  // guarded by this
+  private boolean started;
+
+  private WebRootWatcher(Path root) throws IOException {
+    this.root = root;
+    this.watchService = root.getFileSystem().newWatchService();
+  }
+
+  /**
+   * Subscribes to the changes of a directory tree, the directory is watched until the subscription is closed. The
+   * directory tree is walked by the first subscription, so this method blocks.
+   */
+  static Subscription subscribe(Path dir, Runnable onChange) throws IOException {
+    final Path root = dir.toAbsolutePath().normalize();
+    final WebRootWatcher watcher;
+    final Subscription subscription;
+    synchronized (WATCHERS) {
+      WebRootWatcher existing = WATCHERS.get(root);
+      if (existing == null) {
+        existing = new WebRootWatcher(root);
+        WATCHERS.put(root, existing);
+      }
+      watcher = existing;
+      subscription = watcher.new Subscription(onChange);
+      watcher.subscriptions.add(subscription);
+    }
+    try {
+      // outside of the global lock, only the subscriptions to the same directory wait for the walk
+      watcher.start();
+    } catch (IOException | RuntimeException e) {
+      subscription.close();
+      throw e;
+    }
+    return subscription;
+  }
+
+  private synchronized void start() throws IOException {
+    if (started) {
+      return;
+    }
+    register(root);
+    final Thread thread = new Thread(this::run, "vertx-web-root-watcher " + root);
+    thread.setDaemon(true);
+    thread.start();
+    started = true;
+  }
+
+  private void register(Path dir) throws IOException {
+    Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+        path.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void run() {
+    while (!closed) {
+      final WatchKey key;
+      try {
+        key = watchService.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+      final Path dir = (Path) key.watchable();
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == ENTRY_CREATE) {
+          final Path child = dir.resolve((Path) event.context());
+          if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+              register(child);
+            } catch (IOException e) {
+              LOG.warn("Cannot watch directory: " + child, e);
+            }
+          }
+        }
+      }
+      key.reset();
+      // overflows are notified too, some events were lost
+      for (Subscription subscription : subscriptions) {
+        try {
+          subscription.onChange.run();
+        } catch (RuntimeException e) {
+          LOG.error("Failed to handle web root change", e);
+        }
+      }
+    }
+  }
+
+  private void close() {
+    closed = true;
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to close the web root watcher", e);
+    }
+  }
+
+  final class Subscription {
+
+    private final Runnable onChange;
+
+    private Subscription(Runnable onChange) {
+      this.onChange = onChange;
+    }
+
+    /**
+     * Stops the notifications, closing a subscription more than once has no effect.
+     */
+    void close() {
+      synchronized (WATCHERS) {
+        if (subscriptions.remove(this) && subscriptions.isEmpty()) {
+          WATCHERS.remove(root);
+          WebRootWatcher.this.close();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import io.vertx.ext.web.MIMEHeader;
+import io.vertx.ext.web.ParsedHeaderValues;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A bounded cache of content negotiations. The outcome of matching an {@code Accept} header against the types a route
+ * produces only depends on the raw header value and on the route produces set, so for repeated client header values
+ * a route with {@code produces} costs a single lookup.
+ * <p>
+ * Produces sets are compared by identity, a route replaces the set when a type is added, so a stale negotiation is
+ * never returned. Frequent negotiations are kept when the cache is full. The hit and miss counters can be used to size
+ * the cache.
+ */
+public final class AcceptNegotiationCache {
+
+  private static final AcceptNegotiationCache INSTANCE = new AcceptNegotiationCache(1024);
+
+  // values longer than this are unlikely to be repeated
+  private static final int MAX_HEADER_LENGTH = 512;
+  // marks a cached negotiation that did not select any type
+  private static final MIMEHeader NOT_ACCEPTABLE = new ParsableMIMEValue("");
+
+  private final TinyLFUCache<Key, MIMEHeader> cache;
+
+  AcceptNegotiationCache(int maxSize) {
+    this.cache = new TinyLFUCache<>(maxSize);
+  }
+
+  /**
+   * @return the cache used by the routers
+   */
+  public static AcceptNegotiationCache instance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the type selected by the negotiation of the accept header against the produces set or {@code null} if
+   * the request is not acceptable.
+   *
+   * @param headers the parsed headers of the request
+   * @param accept the raw accept header the accepted list was parsed from
+   * @param accepted the sorted accepted types
+   * @param produces the types a route produces
+   */
+  MIMEHeader negotiate(ParsedHeaderValues headers, String accept, List<MIMEHeader> accepted, Set<MIMEHeader> produces) {
+    final Key key = new Key(accept, produces);
+    MIMEHeader selected = cache.get(key);
+    if (selected != null) {
+      return selected == NOT_ACCEPTABLE ? null : selected;
+    }
+    selected = headers.findBestUserAcceptedIn(accepted, produces);
+    if (accept.length() <= MAX_HEADER_LENGTH) {
+      cache.put(key, selected == null ? NOT_ACCEPTABLE : selected);
+    }
+    return selected;
+  }
+
+  /**
+   * @return the number of negotiations served from the cache
+   */
+  public long hits() {
+    return cache.hits();
+  }
+
+  /**
+   * @return the number of negotiations that had to be computed
+   */
+  public long misses() {
+    return cache.misses();
+  }
+
+  /**
+   * @return the number of cached negotiations
+   */
+  public int size() {
+    return cache.size();
+  }
+
+  private static final class Key {
+
+    private final String accept;
+    private final Set<MIMEHeader> produces;
+    private final int hash;
+
+    Key(String accept, Set<MIMEHeader> produces) {
+      this.accept = accept;
+      this.produces = produces;
+      this.hash = 31 * accept.hashCode() + System.identityHashCode(produces);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return produces == other.produces && accept.equals(other.accept);
+    }
+  }
+}
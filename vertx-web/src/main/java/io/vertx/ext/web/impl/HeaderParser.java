@@ -27,7 +27,12 @@ public class HeaderParser {
    * @return The list of (unparsed) parsable header value
    */
   public static <T extends ParsedHeaderValue> List<T> convertToParsedHeaderValues(String unparsedHeaderValue, Function<String, T> objectCreator) {
-    return split(unparsedHeaderValue, ',', objectCreator);
+    if (unparsedHeaderValue == null || unparsedHeaderValue.length() == 0) {
+      return Collections.emptyList();
+    }
+    final List<T> parts = new ArrayList<>();
+    split(unparsedHeaderValue, 0, ',', (start, end) -> parts.add(objectCreator.apply(unparsedHeaderValue.substring(start, end))));
+    return parts;
   }
 
   /**
@@ -59,32 +64,27 @@ public class HeaderParser {
       // the whole value
       valueCallback.accept(headerContent.substring(0, paramIndex));
 
-      if (paramIndex < headerContent.length()) {
-
-        split(headerContent.substring(paramIndex + 1), ';', part -> {
-          int idx = part.indexOf('=');
-          if (idx != -1) {
-            final String key = part.substring(0, idx);
-            final String val = part.substring(idx + 1);
-
-            if ("q".equalsIgnoreCase(key)) {
-              try {
-                weightCallback.accept(Float.parseFloat(val));
-              } catch (NumberFormatException e) {
-                if (LOG.isTraceEnabled())
-                LOG.trace("Found a \"q\" parameter with value \""+val+"\" that was unparsable");
-              }
-            } else {
-              parameterCallback.accept(key, unquote(val));
+      // parameters are parsed in place, only keys and values are copied
+      split(headerContent, paramIndex + 1, ';', (start, end) -> {
+        int idx = headerContent.indexOf('=', start);
+        if (idx != -1 && idx < end) {
+          final String val = headerContent.substring(idx + 1, end);
+
+          if (idx - start == 1 && headerContent.regionMatches(true, start, "q", 0, 1)) {
+            try {
+              weightCallback.accept(Float.parseFloat(val));
+            } catch (NumberFormatException e) {
+              if (LOG.isTraceEnabled())
+              LOG.trace("Found a \"q\" parameter with value \""+val+"\" that was unparsable");
             }
           } else {
-            // no value associated with this key
-            parameterCallback.accept(part, null);
+            parameterCallback.accept(headerContent.substring(start, idx), unquote(val));
           }
-
-          return null;
-        });
-      }
+        } else {
+          // no value associated with this key
+          parameterCallback.accept(headerContent.substring(start, end), null);
+        }
+      });
     }
   }
 
@@ -116,7 +116,8 @@ public class HeaderParser {
       return Collections.emptyList();
     }
 
-    final List<String> parts = new LinkedList<>();
+    // country, language and variant
+    final List<String> parts = new ArrayList<>(3);
 
     // state machine
     int start = 0;
@@ -172,19 +173,26 @@ public class HeaderParser {
     return parts;
   }
 
-  private static <T> List<T> split(String header, char split, Function<String, T> factory) {
-    if (header == null || header.length() == 0) {
-      return Collections.emptyList();
-    }
+  /**
+   * Receives the bounds of each part of a split header, parts are already trimmed and never empty.
+   */
+  @FunctionalInterface
+  private interface PartHandler {
+    void handle(int start, int end);
+  }
 
-    final List<T> parts = new LinkedList<>();
+  /**
+   * Splits the header from the given index, quoted strings are not split.
+   */
+  private static void split(String header, int from, char split, PartHandler handler) {
+    final int len = header.length();
 
     // state machine
     boolean quote = false;
-    int start = 0;
+    int start = from;
     char last = 0;
 
-    for (int i = 0; i < header.length(); i++) {
+    for (int i = from; i < len; i++) {
       char ch = header.charAt(i);
       // trim initial white space
       if (start == i && ch == ' ') {
@@ -199,41 +207,26 @@ public class HeaderParser {
       last = ch;
       // splitting logic only applies outside quoted strings
       if (!quote && ch == split) {
-        int end = i;
-        // trim end white space
-        for (int j = i - 1; j >= start; j--) {
-          if (header.charAt(j) == ' ') {
-            end--;
-            continue;
-          }
-          break;
-        }
-        // ignore empty
-        if (end - start > 0) {
-          parts.add(factory.apply(header.substring(start, end)));
-        }
+        part(header, start, i, handler);
         start = i + 1;
       }
     }
 
     // rest
-    if (start < header.length()) {
-      int end = header.length();
-      // trim end white space
-      for (int j = header.length() - 1; j >= start; j--) {
-        if (header.charAt(j) == ' ') {
-          end--;
-          continue;
-        }
-        break;
-      }
-      // ignore empty
-      if (end - start > 0) {
-        parts.add(factory.apply(header.substring(start, end)));
-      }
+    if (start < len) {
+      part(header, start, len, handler);
     }
+  }
 
-    return parts;
+  private static void part(String header, int start, int end, PartHandler handler) {
+    // trim end white space
+    while (end > start && header.charAt(end - 1) == ' ') {
+      end--;
+    }
+    // ignore empty
+    if (end - start > 0) {
+      handler.handle(start, end);
+    }
   }
 
   private static String unquote(String value) {
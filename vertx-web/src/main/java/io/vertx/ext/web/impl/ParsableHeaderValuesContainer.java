@@ -1,50 +1,147 @@
 package io.vertx.ext.web.impl;
 
 import io.vertx.codegen.annotations.Nullable;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
 import io.vertx.ext.web.LanguageHeader;
 import io.vertx.ext.web.MIMEHeader;
 import io.vertx.ext.web.ParsedHeaderValue;
 import io.vertx.ext.web.ParsedHeaderValues;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 public class ParsableHeaderValuesContainer implements ParsedHeaderValues {
 
-  private final List<MIMEHeader> accept;
-  private final List<ParsedHeaderValue> acceptCharset;
-  private final List<ParsedHeaderValue> acceptEncoding;
-  private final List<LanguageHeader> acceptLanguage;
-  private final ParsableMIMEValue contentType;
+  private static final int CACHE_SIZE = 256;
+
+  private static final ParsedHeaderCache<List<MIMEHeader>> ACCEPT_CACHE =
+    new ParsedHeaderCache<>(CACHE_SIZE, header -> parse(header, ParsableMIMEValue::new));
+  private static final ParsedHeaderCache<List<ParsedHeaderValue>> ACCEPT_CHARSET_CACHE =
+    new ParsedHeaderCache<>(CACHE_SIZE, header -> parse(header, ParsableHeaderValue::new));
+  private static final ParsedHeaderCache<List<ParsedHeaderValue>> ACCEPT_ENCODING_CACHE =
+    new ParsedHeaderCache<>(CACHE_SIZE, header -> parse(header, ParsableHeaderValue::new));
+  private static final ParsedHeaderCache<List<LanguageHeader>> ACCEPT_LANGUAGE_CACHE =
+    new ParsedHeaderCache<>(CACHE_SIZE, header -> parse(header, ParsableLanguageValue::new));
+  private static final ParsedHeaderCache<ParsableMIMEValue> CONTENT_TYPE_CACHE =
+    new ParsedHeaderCache<>(CACHE_SIZE, header -> new ParsableMIMEValue(header).forceParse());
+
+  // when not null, headers are parsed on demand
+  private final HttpServerRequest request;
+
+  // raw accept header, known when parsed on demand
+  private String acceptHeader;
+  // parsed values, shared with the other requests sending the same header when parsed on demand
+  private List<MIMEHeader> sharedAccept;
+  private List<ParsedHeaderValue> sharedAcceptCharset;
+  private List<ParsedHeaderValue> sharedAcceptEncoding;
+  private List<LanguageHeader> sharedAcceptLanguage;
+  // copies of the shared values returned to the application
+  private List<MIMEHeader> accept;
+  private List<ParsedHeaderValue> acceptCharset;
+  private List<ParsedHeaderValue> acceptEncoding;
+  private List<LanguageHeader> acceptLanguage;
+  private ParsableMIMEValue contentType;
 
   public ParsableHeaderValuesContainer(
       List<MIMEHeader> accept, List<ParsedHeaderValue> acceptCharset, List<ParsedHeaderValue> acceptEncoding,
       List<LanguageHeader> acceptLanguage, ParsableMIMEValue contentType) {
-    this.accept = accept;
-    this.acceptCharset = acceptCharset;
-    this.acceptEncoding = acceptEncoding;
-    this.acceptLanguage = acceptLanguage;
+    this.request = null;
+    this.accept = this.sharedAccept = accept;
+    this.acceptCharset = this.sharedAcceptCharset = acceptCharset;
+    this.acceptEncoding = this.sharedAcceptEncoding = acceptEncoding;
+    this.acceptLanguage = this.sharedAcceptLanguage = acceptLanguage;
     this.contentType = contentType;
   }
 
+  /**
+   * Creates a container that parses the request headers on first access. Parsed values are shared between requests
+   * sending the same header value, the lists returned by the public accessors are copies owned by the request.
+   */
+  public ParsableHeaderValuesContainer(HttpServerRequest request) {
+    this.request = request;
+  }
+
   @Override
   public List<MIMEHeader> accept() {
+    if (accept == null) {
+      accept = copy(sharedAccept());
+    }
     return accept;
   }
   @Override
   public List<ParsedHeaderValue> acceptCharset() {
+    if (acceptCharset == null) {
+      acceptCharset = copy(sharedAcceptCharset());
+    }
     return acceptCharset;
   }
   @Override
   public List<ParsedHeaderValue> acceptEncoding() {
+    if (acceptEncoding == null) {
+      acceptEncoding = copy(sharedAcceptEncoding());
+    }
     return acceptEncoding;
   }
   @Override
   public List<LanguageHeader> acceptLanguage() {
+    if (acceptLanguage == null) {
+      acceptLanguage = copy(sharedAcceptLanguage());
+    }
     return acceptLanguage;
   }
+
+  /**
+   * @return the parsed accept header, not modifiable
+   */
+  public List<MIMEHeader> sharedAccept() {
+    if (sharedAccept == null && request != null) {
+      acceptHeader = request.getHeader(HttpHeaders.ACCEPT);
+      sharedAccept = cached(ACCEPT_CACHE, acceptHeader);
+    }
+    return sharedAccept;
+  }
+
+  /**
+   * @return the parsed accept-charset header, not modifiable
+   */
+  public List<ParsedHeaderValue> sharedAcceptCharset() {
+    if (sharedAcceptCharset == null && request != null) {
+      sharedAcceptCharset = cached(ACCEPT_CHARSET_CACHE, request.getHeader(HttpHeaders.ACCEPT_CHARSET));
+    }
+    return sharedAcceptCharset;
+  }
+
+  /**
+   * @return the parsed accept-encoding header, not modifiable
+   */
+  public List<ParsedHeaderValue> sharedAcceptEncoding() {
+    if (sharedAcceptEncoding == null && request != null) {
+      sharedAcceptEncoding = cached(ACCEPT_ENCODING_CACHE, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+    return sharedAcceptEncoding;
+  }
+
+  /**
+   * @return the parsed accept-language header, not modifiable
+   */
+  public List<LanguageHeader> sharedAcceptLanguage() {
+    if (sharedAcceptLanguage == null && request != null) {
+      sharedAcceptLanguage = cached(ACCEPT_LANGUAGE_CACHE, request.getHeader(HttpHeaders.ACCEPT_LANGUAGE));
+    }
+    return sharedAcceptLanguage;
+  }
+
   @Override
   public ParsableMIMEValue contentType() {
+    if (contentType == null && request != null) {
+      String header = request.getHeader(HttpHeaders.CONTENT_TYPE);
+      contentType = CONTENT_TYPE_CACHE.get(header == null ? "" : header);
+    }
     return contentType;
   }
 
@@ -61,4 +158,38 @@ public class ParsableHeaderValuesContainer implements ParsedHeaderValues {
     }
     return null;
   }
+
+  /**
+   * Finds the best accepted type for the given produces set, repeated negotiations of the same accept header value are
+   * served from the {@link AcceptNegotiationCache}.
+   *
+   * @return the selected type or {@code null} if none is acceptable
+   */
+  MIMEHeader negotiate(Set<MIMEHeader> produces) {
+    final List<MIMEHeader> accepted = sharedAccept();
+    if (acceptHeader == null) {
+      return findBestUserAcceptedIn(accepted, produces);
+    }
+    return AcceptNegotiationCache.instance().negotiate(this, acceptHeader, accepted, produces);
+  }
+
+  private static <T> List<T> copy(List<T> values) {
+    return values == null ? null : new ArrayList<>(values);
+  }
+
+  private static <T> List<T> cached(ParsedHeaderCache<List<T>> cache, String header) {
+    if (header == null || header.length() == 0) {
+      return Collections.emptyList();
+    }
+    return cache.get(header);
+  }
+
+  private static <T extends ParsedHeaderValue> List<T> parse(String header, Function<String, T> factory) {
+    final List<T> values = HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(header, factory));
+    // values are shared, so they must be fully parsed before they are published
+    for (T value : values) {
+      value.weightedOrder();
+    }
+    return Collections.unmodifiableList(values);
+  }
 }
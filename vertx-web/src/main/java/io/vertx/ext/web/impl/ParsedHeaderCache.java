@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import java.util.function.Function;
+
+/**
+ * A bounded cache of parsed header values keyed by the raw header value. Clients tend to send the very same
+ * {@code Accept*} lines on every request so the parsing and sorting of these headers is done once per distinct value.
+ * <p>
+ * Cached values are shared across requests and threads, so the parser must return fully parsed, immutable values.
+ * The cache uses a frequency based admission policy, so a client sending random values cannot evict the frequent
+ * values.
+ */
+final class ParsedHeaderCache<V> {
+
+  // values longer than this are unlikely to be repeated
+  private static final int MAX_HEADER_LENGTH = 512;
+
+  private final TinyLFUCache<String, V> cache;
+  private final Function<String, V> parser;
+
+  ParsedHeaderCache(int maxSize, Function<String, V> parser) {
+    this.cache = new TinyLFUCache<>(maxSize);
+    this.parser = parser;
+  }
+
+  V get(String header) {
+    V value = cache.get(header);
+    if (value == null) {
+      value = parser.apply(header);
+      if (header.length() <= MAX_HEADER_LENGTH) {
+        cache.put(header, value);
+      }
+    }
+    return value;
+  }
+
+  int size() {
+    return cache.size();
+  }
+}
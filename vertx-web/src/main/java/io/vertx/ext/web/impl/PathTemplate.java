@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A matcher for paths with parameters (e.g.: {@code /users/:id/orders/:orderId}) that walks the request path by index
+ * instead of using the pattern the path is compiled to. Matching does not allocate, the parameter values are only
+ * copied once the path is known to match.
+ * <p>
+ * A template is only compiled when it behaves exactly like the pattern: each parameter extends to the end of the path
+ * segment and the path has no regular expression operators. Other paths keep using the pattern.
+ * <p>
+ * This class is thread-safe
+ */
+final class PathTemplate {
+
+  // regex operators that are not escaped when a path with parameters is compiled to a pattern
+  private static final String REGEX_OPERATORS = "\\[]{}?*^|";
+
+  // literals[i] precedes the parameter i, the last literal follows the last parameter
+  private final String[] literals;
+  // the path ends with a wildcard, the rest starts after the last literal
+  private final boolean rest;
+  // an exact path without a final slash also matches the path with a final slash
+  private final boolean optionalSlash;
+
+  private PathTemplate(String[] literals, boolean rest, boolean optionalSlash) {
+    this.literals = literals;
+    this.rest = rest;
+    this.optionalSlash = optionalSlash;
+  }
+
+  /**
+   * Compiles the given route path.
+   *
+   * @param path the path as declared in the route, it may end with a wildcard
+   * @param groups the parameter names as found when the path was compiled to a pattern
+   * @return the template or {@code null} if the path cannot be matched without the pattern
+   */
+  static PathTemplate compile(String path, List<String> groups) {
+    final boolean rest = path.charAt(path.length() - 1) == '*';
+    final int len = rest ? path.length() - 1 : path.length();
+
+    for (int i = 0; i < len; i++) {
+      if (REGEX_OPERATORS.indexOf(path.charAt(i)) != -1) {
+        return null;
+      }
+    }
+
+    final List<String> literals = new ArrayList<>();
+    int start = 0;
+    int param = path.indexOf(':');
+    while (param != -1 && param < len) {
+      literals.add(path.substring(start, param));
+      int end = path.indexOf('/', param);
+      if (end == -1 || end > len) {
+        end = len;
+      }
+      // the parameter must be the whole remaining segment, otherwise the pattern would backtrack
+      final int index = literals.size() - 1;
+      if (index >= groups.size() || !groups.get(index).equals(path.substring(param + 1, end))) {
+        return null;
+      }
+      start = end;
+      param = path.indexOf(':', start);
+    }
+
+    if (literals.size() != groups.size()) {
+      return null;
+    }
+
+    final String last = path.substring(start, len);
+    if (!literals.isEmpty() && !last.isEmpty() && last.charAt(0) != '/') {
+      return null;
+    }
+    literals.add(last);
+
+    final boolean optionalSlash = !rest && path.charAt(len - 1) != '/';
+    return new PathTemplate(literals.toArray(new String[0]), rest, optionalSlash);
+  }
+
+  /**
+   * Matches the path against this template.
+   *
+   * @return {@code -1} if the path does not match, otherwise the start of the wildcard rest, or the path length when
+   * the template has no wildcard
+   */
+  int match(String path) {
+    final int len = path.length();
+    final int params = literals.length - 1;
+    int pos = 0;
+
+    for (int i = 0; i < params; i++) {
+      final String literal = literals[i];
+      if (!path.startsWith(literal, pos)) {
+        return -1;
+      }
+      pos += literal.length();
+      int end = path.indexOf('/', pos);
+      if (end == -1) {
+        end = len;
+      }
+      if (end == pos) {
+        // parameters cannot be empty
+        return -1;
+      }
+      pos = end;
+    }
+
+    final String literal = literals[params];
+    if (!path.startsWith(literal, pos)) {
+      return -1;
+    }
+    pos += literal.length();
+
+    if (rest || pos == len) {
+      return pos;
+    }
+    if (optionalSlash && pos == len - 1 && path.charAt(pos) == '/') {
+      return len;
+    }
+    return -1;
+  }
+
+  /**
+   * @return the number of parameters
+   */
+  int params() {
+    return literals.length - 1;
+  }
+
+  /**
+   * Returns the raw parameter values of a path that is known to match this template.
+   */
+  String[] values(String path) {
+    final String[] values = new String[literals.length - 1];
+    int pos = 0;
+    for (int i = 0; i < values.length; i++) {
+      pos += literals[i].length();
+      int end = path.indexOf('/', pos);
+      if (end == -1) {
+        end = path.length();
+      }
+      values[i] = path.substring(pos, end);
+      pos = end;
+    }
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return String.join(":", literals) + (rest ? "*" : "");
+  }
+}
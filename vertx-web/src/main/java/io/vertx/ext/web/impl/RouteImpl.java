@@ -81,6 +81,7 @@ public class RouteImpl implements Route {
   @Override
   public synchronized Route method(HttpMethod method) {
     state = state.addMethod(method);
+    checkIndex();
     return this;
   }
 
@@ -88,12 +89,14 @@ public class RouteImpl implements Route {
   public Route path(String path) {
     checkPath(path);
     setPath(path);
+    checkIndex();
     return this;
   }
 
   @Override
   public Route pathRegex(String regex) {
     setRegex(regex);
+    checkIndex();
     return this;
   }
 
@@ -217,6 +220,7 @@ public class RouteImpl implements Route {
   @Override
   public synchronized Route useNormalizedPath(boolean useNormalizedPath) {
     state = state.setUseNormalizedPath(useNormalizedPath);
+    checkIndex();
     return this;
   }
 
@@ -327,9 +331,10 @@ public class RouteImpl implements Route {
   private static final Pattern RE_TOKEN_NAME_SEARCH = Pattern.compile("\\(\\?<(" + RE_VAR_NAME + ")>");
 
   // intersection of regex chars and https://tools.ietf.org/html/rfc3986#section-3.3
-  private static final Pattern RE_OPERATORS_NO_STAR = Pattern.compile("([\\(\\)\\$\\+\\.])");
+  static final Pattern RE_OPERATORS_NO_STAR = Pattern.compile("([\\(\\)\\$\\+\\.])");
 
   private synchronized int createPatternRegex(String path) {
+    final String original = path;
     // escape path from any regex special chars
     path = RE_OPERATORS_NO_STAR.matcher(path).replaceAll("\\\\$1");
     // allow usage of * at the end as per documentation
@@ -363,6 +368,8 @@ public class RouteImpl implements Route {
 
     state = state.setGroups(groups);
     state = state.setPattern(Pattern.compile(path));
+    // the common :param syntax can be matched by segments, the pattern remains the reference
+    state = state.setTemplate(PathTemplate.compile(original, groups));
     return index;
   }
 
@@ -383,6 +390,13 @@ public class RouteImpl implements Route {
     }
   }
 
+  private void checkIndex() {
+    // the router indexes the routes by path and method, so changes on active routes must be propagated
+    if (state.isAdded()) {
+      router.reindex();
+    }
+  }
+
   public synchronized RouteImpl setEmptyBodyPermittedWithConsumes(boolean emptyBodyPermittedWithConsumes) {
     state = state.setEmptyBodyPermittedWithConsumes(emptyBodyPermittedWithConsumes);
     return this;
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.http.HttpMethod;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled, immutable view over the routes of a {@link RouterState}. Exact path routes are kept in per method
+ * dispatch tables, wildcard and parameterized routes are indexed in a trie keyed by the literal segments of their
+ * paths, so for a given request only the routes that can possibly match the path are evaluated. Routes that cannot be
+ * indexed (regular expressions, routes without path, non normalized paths) are always evaluated.
+ * <p>
+ * The index never changes the routing outcome, it only avoids calling {@link RouteState#matches} on routes that are
+ * known to return {@code 404}, or {@code 405} in which case the routes are reported by
+ * {@link Candidates#rejected()}. Candidates are always returned in the router order.
+ * <p>
+ * This class is thread-safe
+ */
+final class RouteIndex {
+
+  // regex operators that are not escaped when a path with parameters is compiled to a pattern
+  private static final String REGEX_OPERATORS = "\\[]{}?*^|";
+
+  private final RouteImpl[] routes;
+  // positions of the routes that must always be evaluated
+  private final int[] fallback;
+  // wildcard and parameterized routes by literal segments
+  private final Node root;
+  // exact path routes by path (without trailing slash) accepting the method, routes without methods accept all
+  private final Map<HttpMethod, Map<String, int[]>> exactByMethod = new HashMap<>();
+  // exact path routes by path (without trailing slash) not accepting the method
+  private final Map<HttpMethod, Map<String, int[]>> rejectedByMethod = new HashMap<>();
+  // exact path routes for methods not declared by any exact path route
+  private final Map<String, int[]> exactAnyMethod;
+  private final Map<String, int[]> rejectedAnyMethod;
+
+  RouteIndex(Set<RouteImpl> routes) {
+    this.routes = routes.toArray(new RouteImpl[0]);
+    this.root = new Node();
+
+    final List<Integer> fallback = new ArrayList<>();
+    final Map<String, List<Integer>> exact = new HashMap<>();
+    final Set<HttpMethod> methods = new HashSet<>();
+
+    for (int i = 0; i < this.routes.length; i++) {
+      final RouteState state = this.routes[i].state();
+      final String path = state.getPath();
+
+      if (path == null || !state.isUseNormalizedPath()) {
+        // regex, catch all or raw path routes
+        fallback.add(i);
+        continue;
+      }
+
+      if (state.getPattern() == null) {
+        if (state.isExactPath()) {
+          exact.computeIfAbsent(exactKey(path), k -> new ArrayList<>()).add(i);
+          if (state.getMethods() != null) {
+            methods.addAll(state.getMethods());
+          }
+        } else {
+          // the last segment of a wildcard route is a prefix (e.g.: /foo* matches /foobar)
+          root.child(segments(path, path.lastIndexOf('/') + 1)).prefixRoutes.add(i);
+        }
+      } else {
+        // path with parameters, only the literal segments before the first parameter can be indexed
+        int end = literalPrefix(state);
+        if (end == -1) {
+          fallback.add(i);
+        } else {
+          root.child(segments(path, end)).prefixRoutes.add(i);
+        }
+      }
+    }
+
+    for (HttpMethod method : methods) {
+      exactByMethod.put(method, dispatchTable(exact, method, true));
+      rejectedByMethod.put(method, dispatchTable(exact, method, false));
+    }
+    this.exactAnyMethod = dispatchTable(exact, null, true);
+    this.rejectedAnyMethod = dispatchTable(exact, null, false);
+    this.fallback = toArray(fallback);
+    root.compile();
+  }
+
+  private Map<String, int[]> dispatchTable(Map<String, List<Integer>> exact, HttpMethod method, boolean accepted) {
+    final Map<String, int[]> table = new HashMap<>();
+    for (Map.Entry<String, List<Integer>> kv : exact.entrySet()) {
+      final List<Integer> positions = new ArrayList<>();
+      for (int pos : kv.getValue()) {
+        final Set<HttpMethod> methods = routes[pos].state().getMethods();
+        if (accepted == (methods == null || methods.isEmpty() || methods.contains(method))) {
+          positions.add(pos);
+        }
+      }
+      if (!positions.isEmpty()) {
+        table.put(kv.getKey(), toArray(positions));
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Returns the routes that need to be evaluated for the given context in the router order.
+   */
+  Candidates iterator(RoutingContextImplBase ctx) {
+    final String path = lookupPath(ctx);
+
+    if (path == null) {
+      // the path cannot be resolved, evaluate all routes
+      final long[] candidates = new long[(routes.length + 63) >>> 6];
+      for (int i = 0; i < routes.length; i++) {
+        candidates[i >>> 6] |= 1L << i;
+      }
+      return new Candidates(routes, candidates, null);
+    }
+
+    final long[] candidates = new long[(routes.length + 63) >>> 6];
+    mark(candidates, fallback);
+
+    // exact path routes are a single lookup
+    final HttpMethod method = ctx.request().method();
+    final String key = exactKey(path);
+    Map<String, int[]> table = exactByMethod.get(method);
+    final int[] exact = (table == null ? exactAnyMethod : table).get(key);
+    if (exact != null) {
+      mark(candidates, exact);
+    }
+    table = rejectedByMethod.get(method);
+    final int[] rejected = (table == null ? rejectedAnyMethod : table).get(key);
+
+    Node node = root;
+    mark(candidates, node.prefix);
+
+    if (path.length() > 0 && path.charAt(0) == '/') {
+      final int len = key.length();
+      int start = 1;
+      while (node != null && start <= len) {
+        int end = path.indexOf('/', start);
+        if (end == -1 || end > len) {
+          end = len;
+        }
+        node = node.children.get(path.substring(start, end));
+        if (node != null) {
+          mark(candidates, node.prefix);
+        }
+        start = end + 1;
+      }
+    }
+
+    return new Candidates(routes, candidates, rejected);
+  }
+
+  /**
+   * The key of an exact path, a single trailing slash is not significant for the lookup.
+   */
+  private static String exactKey(String path) {
+    final int len = path.length();
+    if (len > 0 && path.charAt(len - 1) == '/') {
+      return path.substring(0, len - 1);
+    }
+    return path;
+  }
+
+  /**
+   * The path the routes are matched against, relative to the mount point, or {@code null} when it cannot be
+   * determined safely.
+   */
+  private static String lookupPath(RoutingContextImplBase ctx) {
+    final String requestPath = ctx.request().path();
+    if (requestPath == null || requestPath.length() == 0 || requestPath.charAt(0) != '/') {
+      return null;
+    }
+
+    final String path;
+    try {
+      path = ctx.normalizedPath();
+    } catch (RuntimeException e) {
+      // let the routes fail the request as they usually do
+      return null;
+    }
+
+    final String mountPoint = ctx.mountPoint();
+    if (mountPoint == null) {
+      return path;
+    }
+
+    int strip = mountPoint.length();
+    // mount point can have significant slash
+    if (strip > 0 && mountPoint.charAt(strip - 1) == '/') {
+      strip--;
+    }
+    if (!path.regionMatches(0, mountPoint, 0, strip)) {
+      return null;
+    }
+    return path.substring(strip);
+  }
+
+  /**
+   * Splits the first {@code len} characters of the path in segments, a single trailing slash is ignored.
+   */
+  private static List<String> segments(String path, int len) {
+    final List<String> segments = new ArrayList<>();
+    if (len > 0 && path.charAt(len - 1) == '/') {
+      len--;
+    }
+    int start = 1;
+    while (start <= len) {
+      int end = path.indexOf('/', start);
+      if (end == -1 || end > len) {
+        end = len;
+      }
+      segments.add(path.substring(start, end));
+      start = end + 1;
+    }
+    return segments;
+  }
+
+  /**
+   * Returns the length of the literal segments before the first parameter or {@code -1} if the route pattern does not
+   * require a literal prefix.
+   */
+  private static int literalPrefix(RouteState state) {
+    final String path = state.getPath();
+    final int param = path.indexOf(':');
+    if (param == -1) {
+      return -1;
+    }
+    for (int i = 0; i < param; i++) {
+      if (REGEX_OPERATORS.indexOf(path.charAt(i)) != -1) {
+        return -1;
+      }
+    }
+    final int end = path.lastIndexOf('/', param) + 1;
+    // the pattern may have been replaced by a regex after the path was set, so
+    // verify that it starts with the literal prefix and that the prefix is mandatory
+    final Pattern pattern = state.getPattern();
+    final String regex = pattern.pattern();
+    final String prefix = RouteImpl.RE_OPERATORS_NO_STAR.matcher(path.substring(0, end)).replaceAll("\\\\$1");
+    if (pattern.flags() != 0 || regex.indexOf('|') != -1 || !regex.startsWith(prefix)) {
+      return -1;
+    }
+    if (regex.length() > prefix.length() && "?*+{".indexOf(regex.charAt(prefix.length())) != -1) {
+      return -1;
+    }
+    return end;
+  }
+
+  private static void mark(long[] bits, int[] positions) {
+    for (int pos : positions) {
+      bits[pos >>> 6] |= 1L << pos;
+    }
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    final int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  private static final class Node {
+
+    final Map<String, Node> children = new HashMap<>();
+    // routes matching this node and any descendant
+    private List<Integer> prefixRoutes = new ArrayList<>();
+
+    int[] prefix;
+
+    Node child(List<String> segments) {
+      Node node = this;
+      for (String segment : segments) {
+        node = node.children.computeIfAbsent(segment, k -> new Node());
+      }
+      return node;
+    }
+
+    void compile() {
+      prefix = toArray(prefixRoutes);
+      prefixRoutes = null;
+      for (Node child : children.values()) {
+        child.compile();
+      }
+    }
+  }
+
+  /**
+   * The candidate routes of a request in the router order.
+   */
+  static final class Candidates implements Iterator<RouteImpl> {
+
+    private final RouteImpl[] routes;
+    private final long[] candidates;
+    // exact path routes skipped because they do not accept the request method
+    private final int[] rejected;
+    private int next;
+    private int current = -1;
+    // first rejected route after the last matched route
+    private int pending;
+
+    Candidates(RouteImpl[] routes, long[] candidates, int[] rejected) {
+      this.routes = routes;
+      this.candidates = candidates;
+      this.rejected = rejected;
+      this.next = advance(0);
+    }
+
+    private int advance(int from) {
+      int word = from >>> 6;
+      if (word >= candidates.length) {
+        return -1;
+      }
+      long bits = candidates[word] & (-1L << from);
+      while (true) {
+        if (bits != 0) {
+          return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        if (++word == candidates.length) {
+          return -1;
+        }
+        bits = candidates[word];
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != -1;
+    }
+
+    @Override
+    public RouteImpl next() {
+      if (next == -1) {
+        throw new NoSuchElementException();
+      }
+      current = next;
+      next = advance(next + 1);
+      return routes[current];
+    }
+
+    /**
+     * Signals that the last returned route matched the request.
+     */
+    void matched() {
+      if (rejected != null) {
+        while (pending < rejected.length && rejected[pending] < current) {
+          pending++;
+        }
+      }
+    }
+
+    /**
+     * The exact path routes that were skipped because of the request method after the last matched route. These
+     * routes can only fail with {@code 404} or {@code 405}.
+     */
+    List<RouteImpl> rejected() {
+      if (rejected == null || pending == rejected.length) {
+        return Collections.emptyList();
+      }
+      final List<RouteImpl> list = new ArrayList<>(rejected.length - pending);
+      for (int i = pending; i < rejected.length; i++) {
+        list.add(routes[rejected[i]]);
+      }
+      return list;
+    }
+  }
+}
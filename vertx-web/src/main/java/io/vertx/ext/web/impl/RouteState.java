@@ -20,6 +20,7 @@ import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.net.impl.URIDecoder;
 import io.vertx.ext.web.MIMEHeader;
+import io.vertx.ext.web.ParsedHeaderValues;
 import io.vertx.ext.web.RoutingContext;
 
 import java.util.*;
@@ -57,8 +58,10 @@ final class RouteState {
   private final boolean pathEndsWithSlash;
   private final boolean exclusive;
   private final boolean exactPath;
+  // segment matcher of a path with parameters, when null the pattern is used
+  private final PathTemplate template;
 
-  private RouteState(RouteImpl route, Map<String, Object> metadata, String path, String name, int order, boolean enabled, Set<HttpMethod> methods, Set<MIMEHeader> consumes, boolean emptyBodyPermittedWithConsumes, Set<MIMEHeader> produces, List<Handler<RoutingContext>> contextHandlers, List<Handler<RoutingContext>> failureHandlers, boolean added, Pattern pattern, List<String> groups, boolean useNormalizedPath, Set<String> namedGroupsInRegex, Pattern virtualHostPattern, boolean pathEndsWithSlash, boolean exclusive, boolean exactPath) {
+  private RouteState(RouteImpl route, Map<String, Object> metadata, String path, String name, int order, boolean enabled, Set<HttpMethod> methods, Set<MIMEHeader> consumes, boolean emptyBodyPermittedWithConsumes, Set<MIMEHeader> produces, List<Handler<RoutingContext>> contextHandlers, List<Handler<RoutingContext>> failureHandlers, boolean added, Pattern pattern, List<String> groups, boolean useNormalizedPath, Set<String> namedGroupsInRegex, Pattern virtualHostPattern, boolean pathEndsWithSlash, boolean exclusive, boolean exactPath, PathTemplate template) {
     this.route = route;
     this.metadata = metadata;
     this.path = path;
@@ -80,6 +83,7 @@ final class RouteState {
     this.pathEndsWithSlash = pathEndsWithSlash;
     this.exclusive = exclusive;
     this.exactPath = exactPath;
+    this.template = template;
   }
 
   RouteState(RouteImpl route, int order) {
@@ -104,7 +108,8 @@ final class RouteState {
       null,
       false,
       false,
-      true);
+      true,
+      null);
   }
 
   public RouteImpl getRoute() {
@@ -144,7 +149,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public Map<String, Object> getMetadata() {
@@ -177,7 +183,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public int getOrder() {
@@ -206,7 +213,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public boolean isEnabled() {
@@ -235,7 +243,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public Set<HttpMethod> getMethods() {
@@ -264,7 +273,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public RouteState addMethod(HttpMethod method) {
@@ -289,7 +299,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
 
     newState.methods.add(method);
     return newState;
@@ -321,7 +332,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   RouteState addConsume(MIMEHeader mime) {
@@ -346,7 +358,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
 
     newState.consumes.add(mime);
     return newState;
@@ -378,7 +391,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public Set<MIMEHeader> getProduces() {
@@ -407,7 +421,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   RouteState addProduce(MIMEHeader mime) {
@@ -432,7 +447,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
 
     newState.produces.add(mime);
     return newState;
@@ -468,7 +484,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   RouteState addContextHandler(Handler<RoutingContext> contextHandler) {
@@ -493,7 +510,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
 
     newState.contextHandlers.add(contextHandler);
     return newState;
@@ -529,7 +547,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   RouteState addFailureHandler(Handler<RoutingContext> failureHandler) {
@@ -554,7 +573,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
 
     newState.failureHandlers.add(failureHandler);
     return newState;
@@ -586,7 +606,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public Pattern getPattern() {
@@ -615,7 +636,39 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      // the template is only valid for the pattern it was compiled with
+      null);
+  }
+
+  public PathTemplate getTemplate() {
+    return template;
+  }
+
+  RouteState setTemplate(PathTemplate template) {
+    return new RouteState(
+      this.route,
+      this.metadata,
+      this.path,
+      this.name,
+      this.order,
+      this.enabled,
+      this.methods,
+      this.consumes,
+      this.emptyBodyPermittedWithConsumes,
+      this.produces,
+      this.contextHandlers,
+      this.failureHandlers,
+      this.added,
+      this.pattern,
+      this.groups,
+      this.useNormalizedPath,
+      this.namedGroupsInRegex,
+      this.virtualHostPattern,
+      this.pathEndsWithSlash,
+      this.exclusive,
+      this.exactPath,
+      template);
   }
 
   public List<String> getGroups() {
@@ -644,7 +697,9 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      // the template is only valid for the groups it was compiled with
+      null);
   }
 
   RouteState addGroup(String group) {
@@ -669,7 +724,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
 
     newState.groups.add(group);
     return newState;
@@ -701,7 +757,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public Set<String> getNamedGroupsInRegex() {
@@ -730,7 +787,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   RouteState addNamedGroupInRegex(String namedGroupInRegex) {
@@ -755,7 +813,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
 
     newState.namedGroupsInRegex.add(namedGroupInRegex);
     return newState;
@@ -787,7 +846,8 @@ final class RouteState {
       virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public boolean isPathEndsWithSlash() {
@@ -816,7 +876,8 @@ final class RouteState {
       this.virtualHostPattern,
       pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public boolean isExclusive() {
@@ -845,7 +906,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
 
   public boolean isExactPath() {
@@ -874,7 +936,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      exactPath);
+      exactPath,
+      this.template);
   }
   RouteState setName(String name) {
     return new RouteState(
@@ -898,7 +961,8 @@ final class RouteState {
       this.virtualHostPattern,
       this.pathEndsWithSlash,
       this.exclusive,
-      this.exactPath);
+      this.exactPath,
+      this.template);
   }
   private boolean containsMethod(HttpServerRequest request) {
     if (!isEmpty(methods)) {
@@ -944,6 +1008,10 @@ final class RouteState {
         }
       }
 
+      if (template != null) {
+        return matchesTemplate(context, request, path);
+      }
+
       Matcher m;
       if (path != null && (m = pattern.matcher(path)).matches()) {
         if (!isEmpty(methods) && !containsMethod(request)) {
@@ -1018,6 +1086,39 @@ final class RouteState {
       }
     }
 
+    return matchesHeaders(context);
+  }
+
+  private int matchesTemplate(RoutingContextImplBase context, HttpServerRequest request, String path) {
+    final int rest = path == null ? -1 : template.match(path);
+    if (rest == -1) {
+      return 404;
+    }
+    if (!isEmpty(methods) && !containsMethod(request)) {
+      // If I'm here path matches, but the method is wrong
+      return 405;
+    }
+
+    context.matchRest = -1;
+    context.matchNormalized = useNormalizedPath;
+
+    if (!exactPath) {
+      context.matchRest = rest;
+      // always replace
+      context.pathParams()
+        .put("*", path.substring(rest));
+    }
+
+    // values are only copied once the path is known to match
+    final String[] values = template.values(path);
+    for (int i = 0; i < values.length; i++) {
+      addPathParam(context, groups.get(i), values[i]);
+    }
+
+    return matchesHeaders(context);
+  }
+
+  private int matchesHeaders(RoutingContextImplBase context) {
     if (!isEmpty(consumes)) {
       // Can this route consume the specified content type
       MIMEHeader contentType = context.parsedHeaders().contentType();
@@ -1031,9 +1132,19 @@ final class RouteState {
       }
     }
     if (!isEmpty(produces)) {
-      List<MIMEHeader> acceptableTypes = context.parsedHeaders().accept();
+      ParsedHeaderValues parsedHeaders = context.parsedHeaders();
+      final boolean parsable = parsedHeaders instanceof ParsableHeaderValuesContainer;
+      List<MIMEHeader> acceptableTypes = parsable ?
+        ((ParsableHeaderValuesContainer) parsedHeaders).sharedAccept() :
+        parsedHeaders.accept();
       if(!acceptableTypes.isEmpty()) {
-        MIMEHeader selectedAccept = context.parsedHeaders().findBestUserAcceptedIn(acceptableTypes, produces);
+        MIMEHeader selectedAccept;
+        if (parsable) {
+          // negotiations are cached per accept header value
+          selectedAccept = ((ParsableHeaderValuesContainer) parsedHeaders).negotiate(produces);
+        } else {
+          selectedAccept = parsedHeaders.findBestUserAcceptedIn(acceptableTypes, produces);
+        }
         if (selectedAccept != null) {
           context.setAcceptableContentType(selectedAccept.rawValue());
         } else {
@@ -1254,6 +1365,7 @@ final class RouteState {
       ", pathEndsWithSlash=" + pathEndsWithSlash +
       ", exclusive=" + exclusive +
       ", exactPath=" + exactPath +
+      ", template=" + template +
       '}';
   }
 }
@@ -64,7 +64,7 @@ public class RouterImpl implements Router {
     if (LOG.isTraceEnabled()) {
       LOG.trace("Router: " + System.identityHashCode(this) + " accepting request " + request.method() + " " + request.absoluteURI());
     }
-    new RoutingContextImpl(null, this, request, state.getRoutes()).next();
+    new RoutingContextImpl(null, this, request, state).next();
   }
 
   @Override
@@ -245,12 +245,12 @@ public class RouterImpl implements Router {
 
   @Override
   public void handleContext(RoutingContext ctx) {
-    new RoutingContextWrapper(getAndCheckRoutePath(ctx), state.getRoutes(), (RoutingContextInternal) ctx, this).next();
+    new RoutingContextWrapper(getAndCheckRoutePath(ctx), state, (RoutingContextInternal) ctx, this).next();
   }
 
   @Override
   public void handleFailure(RoutingContext ctx) {
-    new RoutingContextWrapper(getAndCheckRoutePath(ctx), state.getRoutes(), (RoutingContextInternal) ctx, this).next();
+    new RoutingContextWrapper(getAndCheckRoutePath(ctx), state, (RoutingContextInternal) ctx, this).next();
   }
 
   @Override
@@ -287,6 +287,12 @@ public class RouterImpl implements Router {
     return state.getAllowForward();
   }
 
+  @Override
+  public synchronized Router poolContexts(boolean poolContexts) {
+    state = state.setPoolContexts(poolContexts);
+    return this;
+  }
+
   @Override
   public Route mountSubRouter(String mountPoint, Router subRouter) {
     if (mountPoint.endsWith("*")) {
@@ -319,12 +325,17 @@ public class RouterImpl implements Router {
     }
   }
 
+  synchronized void reindex() {
+    // a route path changed after being added, the index must be compiled again
+    state = state.reindex();
+  }
+
   Vertx vertx() {
     return vertx;
   }
 
-  Iterator<RouteImpl> iterator() {
-    return state.getRoutes().iterator();
+  RouteIndex.Candidates iterator(RoutingContextImplBase ctx) {
+    return state.getIndex().iterator(ctx);
   }
 
   Handler<RoutingContext> getErrorHandlerByStatusCode(int statusCode) {
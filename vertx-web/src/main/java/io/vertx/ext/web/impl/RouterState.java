@@ -60,8 +60,12 @@ final class RouterState {
   private final Handler<Router> modifiedHandler;
   private final AllowForwardHeaders allowForward;
   private final Map<String, Object> metadata;
+  // reuse the per request structures of the routing contexts
+  private final boolean poolContexts;
+  // compiled lazily from the routes on the first request
+  private volatile RouteIndex index;
 
-  public RouterState(RouterImpl router, Set<RouteImpl> routes, int orderSequence, Map<Integer, Handler<RoutingContext>> errorHandlers, Handler<Router> modifiedHandler, AllowForwardHeaders allowForward, Map<String, Object> metadata) {
+  public RouterState(RouterImpl router, Set<RouteImpl> routes, int orderSequence, Map<Integer, Handler<RoutingContext>> errorHandlers, Handler<Router> modifiedHandler, AllowForwardHeaders allowForward, Map<String, Object> metadata, boolean poolContexts) {
     this.router = router;
     this.routes = routes;
     this.orderSequence = orderSequence;
@@ -69,6 +73,7 @@ final class RouterState {
     this.modifiedHandler = modifiedHandler;
     this.allowForward = allowForward;
     this.metadata = metadata;
+    this.poolContexts = poolContexts;
   }
 
   public RouterState(RouterImpl router) {
@@ -79,7 +84,8 @@ final class RouterState {
       null,
       null,
       AllowForwardHeaders.NONE,
-      null);
+      null,
+      false);
   }
 
   public RouterImpl router() {
@@ -93,6 +99,28 @@ final class RouterState {
     return routes;
   }
 
+  RouteIndex getIndex() {
+    RouteIndex index = this.index;
+    if (index == null) {
+      // the state is immutable, a concurrent build will produce an equivalent index
+      index = new RouteIndex(getRoutes());
+      this.index = index;
+    }
+    return index;
+  }
+
+  RouterState reindex() {
+    return new RouterState(
+      this.router,
+      this.routes,
+      this.orderSequence,
+      this.errorHandlers,
+      this.modifiedHandler,
+      this.allowForward,
+      this.metadata,
+      this.poolContexts);
+  }
+
   RouterState setRoutes(Set<RouteImpl> routes) {
     RouterState newState = new RouterState(
       this.router,
@@ -101,7 +129,8 @@ final class RouterState {
       this.errorHandlers,
       this.modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
 
     newState.routes.addAll(routes);
     return newState;
@@ -121,7 +150,8 @@ final class RouterState {
       this.errorHandlers,
       this.modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
   }
 
   RouterState clearRoutes() {
@@ -132,7 +162,8 @@ final class RouterState {
       this.errorHandlers,
       this.modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
   }
 
   RouterState removeRoute(RouteImpl route) {
@@ -149,7 +180,8 @@ final class RouterState {
       this.errorHandlers,
       this.modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
   }
 
   public int getOrderSequence() {
@@ -164,7 +196,8 @@ final class RouterState {
       this.errorHandlers,
       this.modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
   }
 
   RouterState setOrderSequence(int orderSequence) {
@@ -175,7 +208,8 @@ final class RouterState {
       this.errorHandlers,
       this.modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
   }
 
   public Map<Integer, Handler<RoutingContext>> getErrorHandlers() {
@@ -190,7 +224,8 @@ final class RouterState {
       errorHandlers,
       this.modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
   }
 
   Handler<RoutingContext> getErrorHandler(int errorCode) {
@@ -208,7 +243,8 @@ final class RouterState {
       this.errorHandlers == null ? new HashMap<>() : new HashMap<>(errorHandlers),
       this.modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
 
     newState.errorHandlers.put(errorCode, errorHandler);
     return newState;
@@ -226,7 +262,8 @@ final class RouterState {
       this.errorHandlers,
       modifiedHandler,
       this.allowForward,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
   }
 
   public RouterState setAllowForward(AllowForwardHeaders allow) {
@@ -237,7 +274,8 @@ final class RouterState {
       this.errorHandlers,
       this.modifiedHandler,
       allow,
-      this.metadata);
+      this.metadata,
+      this.poolContexts);
   }
 
   public AllowForwardHeaders getAllowForward() {
@@ -258,7 +296,24 @@ final class RouterState {
       this.errorHandlers,
       this.modifiedHandler,
       this.allowForward,
-      Collections.unmodifiableMap(metadata));
+      Collections.unmodifiableMap(metadata),
+      this.poolContexts);
+  }
+
+  RouterState setPoolContexts(boolean poolContexts) {
+    return new RouterState(
+      this.router,
+      this.routes,
+      this.orderSequence,
+      this.errorHandlers,
+      this.modifiedHandler,
+      this.allowForward,
+      this.metadata,
+      poolContexts);
+  }
+
+  public boolean isPoolContexts() {
+    return poolContexts;
   }
 
   public Map<String, Object> getMetadata() {
@@ -275,6 +330,7 @@ final class RouterState {
       ", modifiedHandler=" + modifiedHandler +
       ", this.allowForward=" + allowForward +
       ", metadata=" + metadata +
+      ", poolContexts=" + poolContexts +
       '}';
   }
 }
@@ -74,11 +74,21 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   private volatile boolean isSessionAccessed = false;
   private volatile boolean endHandlerCalled = false;
 
-  public RoutingContextImpl(String mountPoint, RouterImpl router, HttpServerRequest request, Set<RouteImpl> routes) {
-    super(mountPoint, routes, router);
+  // pooled per request structures, only when the router pools contexts
+  private RoutingContextPool.Resources resources;
+  private boolean recycled;
+
+  public RoutingContextImpl(String mountPoint, RouterImpl router, HttpServerRequest request, RouterState state) {
+    super(mountPoint, state, router);
     this.router = router;
     this.request = new HttpServerRequestWrapper(request, router.getAllowForward());
 
+    if (state.isPoolContexts()) {
+      resources = RoutingContextPool.acquire();
+      // registered first so it runs after any other end handler
+      addEndHandler(this::recycle);
+    }
+
     final String path = request.path();
 
     if (path == null || path.length() == 0) {
@@ -90,27 +100,6 @@ public class RoutingContextImpl extends RoutingContextImplBase {
     }
   }
 
-  private String ensureNotNull(String string){
-    return string == null ? "" : string;
-  }
-
-  private void fillParsedHeaders(HttpServerRequest request) {
-    String accept = request.getHeader(HttpHeaders.ACCEPT);
-    String acceptCharset = request.getHeader (HttpHeaders.ACCEPT_CHARSET);
-    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
-    String acceptLanguage = request.getHeader(HttpHeaders.ACCEPT_LANGUAGE);
-    String contentType = ensureNotNull(request.getHeader(HttpHeaders.CONTENT_TYPE));
-
-    parsedHeaders = new ParsableHeaderValuesContainer(
-        HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(accept, ParsableMIMEValue::new)),
-        HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(acceptCharset, ParsableHeaderValue::new)),
-        HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(acceptEncoding, ParsableHeaderValue::new)),
-        HeaderParser.sort(HeaderParser.convertToParsedHeaderValues(acceptLanguage, ParsableLanguageValue::new)),
-        new ParsableMIMEValue(contentType)
-    );
-
-  }
-
   @Override
   public HttpServerRequest request() {
     return request;
@@ -211,6 +200,7 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   @Override
   @SuppressWarnings("unchecked")
   public <T> T get(String key) {
+    checkRecycled();
     if (data == null) {
       return null;
     } else {
@@ -221,6 +211,7 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   @Override
   @SuppressWarnings("unchecked")
   public <T> T get(String key, T defaultValue) {
+    checkRecycled();
     if (data == null) {
       return defaultValue;
     } else {
@@ -236,6 +227,7 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   @Override
   @SuppressWarnings("unchecked")
   public <T> T remove(String key) {
+    checkRecycled();
     if (data == null) {
       return null;
     } else {
@@ -414,7 +406,8 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   @Override
   public ParsableHeaderValuesContainer parsedHeaders() {
     if (parsedHeaders == null) {
-      fillParsedHeaders(request);
+      // headers are parsed on demand
+      parsedHeaders = new ParsableHeaderValuesContainer(request);
     }
     return parsedHeaders;
   }
@@ -511,7 +504,8 @@ public class RoutingContextImpl extends RoutingContextImplBase {
       try {
         // Decode query parameters and put inside context.queryParams
         if (charset == null) {
-          queryParams = MultiMap.caseInsensitiveMultiMap();
+          checkRecycled();
+          queryParams = resources != null ? resources.queryParams : MultiMap.caseInsensitiveMultiMap();
           Map<String, List<String>> decodedParams = new QueryStringDecoder(request.uri()).parameters();
           for (Map.Entry<String, List<String>> entry : decodedParams.entrySet()) {
             queryParams.add(entry.getKey(), entry.getValue());
@@ -533,7 +527,8 @@ public class RoutingContextImpl extends RoutingContextImplBase {
 
   private Map<String, String> getPathParams() {
     if (pathParams == null) {
-      pathParams = new HashMap<>();
+      checkRecycled();
+      pathParams = resources != null ? resources.pathParams : new HashMap<>();
     }
     return pathParams;
   }
@@ -599,18 +594,46 @@ public class RoutingContextImpl extends RoutingContextImplBase {
   }
 
   private void doFail() {
-    this.iter = router.iterator();
+    this.iter = router.iterator(this);
     currentRoute = null;
     next();
   }
 
   private Map<String, Object> getData() {
     if (data == null) {
-      data = new HashMap<>();
+      checkRecycled();
+      data = resources != null ? resources.data : new HashMap<>();
     }
     return data;
   }
 
+  private void recycle(AsyncResult<Void> ar) {
+    final RoutingContextPool.Resources resources = this.resources;
+    if (resources == null) {
+      return;
+    }
+    this.resources = null;
+    final HttpServerResponse response = response();
+    if (ar.failed() || !response.ended() || response.closed()) {
+      // the connection was closed while a handler may still be running, the structures are left to the GC
+      return;
+    }
+    // the handler which ended the response may still use the context until it returns
+    vertx().runOnContext(v -> {
+      recycled = true;
+      data = null;
+      pathParams = null;
+      queryParams = null;
+      RoutingContextPool.release(resources);
+    });
+  }
+
+  private void checkRecycled() {
+    if (recycled) {
+      throw new IllegalStateException("RoutingContext used after the response ended, contexts cannot be retained when the router pools contexts");
+    }
+  }
+
   private int nextHandlerSeq() {
     int seq = HANDLER_SEQ.incrementAndGet(this);
     if (seq == Integer.MAX_VALUE) {
@@ -25,8 +25,7 @@ import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.HttpException;
 
-import java.util.Iterator;
-import java.util.Set;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
@@ -41,13 +40,13 @@ public abstract class RoutingContextImplBase implements RoutingContextInternal {
 
   protected static final Logger LOG = LoggerFactory.getLogger(RoutingContext.class);
 
-  private final Set<RouteImpl> routes;
+  private final RouterState state;
 
   protected final Router currentRouter;
   protected final String mountPoint;
   private volatile int currentRouteNextHandlerIndex;
   private volatile int currentRouteNextFailureHandlerIndex;
-  protected Iterator<RouteImpl> iter;
+  protected RouteIndex.Candidates iter;
   protected RouteState currentRoute;
   // When Route#matches executes, if it returns != 0 this flag is configured
   // to write the correct status code at the end of routing process
@@ -58,10 +57,9 @@ public abstract class RoutingContextImplBase implements RoutingContextInternal {
   // internal runtime state
   private volatile long seen;
 
-  RoutingContextImplBase(String mountPoint, Set<RouteImpl> routes, Router currentRouter) {
+  RoutingContextImplBase(String mountPoint, RouterState state, Router currentRouter) {
     this.mountPoint = mountPoint;
-    this.routes = routes;
-    this.iter = routes.iterator();
+    this.state = state;
 
     this.currentRouter = currentRouter;
     resetMatchFailure();
@@ -111,7 +109,7 @@ public abstract class RoutingContextImplBase implements RoutingContextInternal {
   }
 
   void restart() {
-    this.iter = routes.iterator();
+    this.iter = null;
     currentRoute = null;
     next();
   }
@@ -135,6 +133,10 @@ public abstract class RoutingContextImplBase implements RoutingContextInternal {
         return true;
       }
     }
+    if (iter == null) {
+      // the candidate routes depend on the request path, which is only known once routing starts
+      iter = state.getIndex().iterator(this);
+    }
     // Search for more handlers
     while (iter.hasNext()) {
       // state is locked at this moment
@@ -149,6 +151,7 @@ public abstract class RoutingContextImplBase implements RoutingContextInternal {
             LOG.trace("Route matches: " + routeState);
           }
           resetMatchFailure();
+          iter.matched();
           try {
             currentRoute = routeState;
             request().routed(currentRoute.getName());
@@ -188,9 +191,36 @@ public abstract class RoutingContextImplBase implements RoutingContextInternal {
         return true;
       }
     }
+    checkMethodNotAllowed(failed);
     return false;
   }
 
+  private void checkMethodNotAllowed(boolean failed) {
+    // exact path routes skipped by the method dispatch table can still turn a 404 into a 405
+    if (matchFailure != 404) {
+      return;
+    }
+    List<RouteImpl> rejected = iter.rejected();
+    if (rejected.isEmpty()) {
+      return;
+    }
+    final int handlerIndex = currentRouteNextHandlerIndex;
+    final int failureHandlerIndex = currentRouteNextFailureHandlerIndex;
+    try {
+      for (RouteImpl route : rejected) {
+        CURRENT_ROUTE_NEXT_HANDLER_INDEX.set(this, 0);
+        CURRENT_ROUTE_NEXT_FAILURE_HANDLER_INDEX.set(this, 0);
+        if (route.state().matches(this, mountPoint(), failed) == 405) {
+          matchFailure = 405;
+          return;
+        }
+      }
+    } finally {
+      CURRENT_ROUTE_NEXT_HANDLER_INDEX.set(this, handlerIndex);
+      CURRENT_ROUTE_NEXT_FAILURE_HANDLER_INDEX.set(this, failureHandlerIndex);
+    }
+  }
+
   private void handleInHandlerRuntimeFailure(RouterImpl router, boolean failed, Throwable t) {
     if (!failed) {
       if (LOG.isTraceEnabled()) {
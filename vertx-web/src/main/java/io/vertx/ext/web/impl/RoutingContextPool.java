@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.MultiMap;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A thread local pool of the per request structures of a {@link RoutingContextImpl}. Structures are acquired when the
+ * context is created and released after the response end handlers have run, as both happen on the context thread an
+ * event loop never shares its pool.
+ */
+final class RoutingContextPool {
+
+  // structures kept per thread
+  private static final int MAX_POOLED = 64;
+  // structures that grew larger than this are left to the GC, a cleared map keeps its capacity
+  private static final int MAX_ENTRIES = 32;
+
+  private static final FastThreadLocal<ArrayDeque<Resources>> POOL = new FastThreadLocal<ArrayDeque<Resources>>() {
+    @Override
+    protected ArrayDeque<Resources> initialValue() {
+      return new ArrayDeque<>(MAX_POOLED);
+    }
+  };
+
+  private RoutingContextPool() {
+  }
+
+  static Resources acquire() {
+    final Resources resources = POOL.get().pollFirst();
+    return resources == null ? new Resources() : resources;
+  }
+
+  static void release(Resources resources) {
+    if (resources.reset()) {
+      final ArrayDeque<Resources> pool = POOL.get();
+      if (pool.size() < MAX_POOLED) {
+        pool.offerFirst(resources);
+      }
+    }
+  }
+
+  static final class Resources {
+
+    final Map<String, Object> data = new HashMap<>();
+    final Map<String, String> pathParams = new HashMap<>();
+    final MultiMap queryParams = MultiMap.caseInsensitiveMultiMap();
+
+    private boolean reset() {
+      if (data.size() > MAX_ENTRIES || pathParams.size() > MAX_ENTRIES || queryParams.size() > MAX_ENTRIES) {
+        return false;
+      }
+      data.clear();
+      pathParams.clear();
+      queryParams.clear();
+      return true;
+    }
+  }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache using the W-TinyLFU policy.
+ * <p>
+ * The cache is split in stripes selected by the key hash, each stripe has its own lock so event loops working on
+ * different keys do not contend. Every stripe keeps a small LRU admission window in front of a larger LRU main
+ * space. Entries leaving the window only enter the main space when they were used more often than the main space
+ * victim, frequencies are estimated by a count-min sketch that is periodically halved so old popularity fades away.
+ * This keeps frequently used entries cached when a burst of one off keys (e.g. a scan) goes through the cache, while
+ * the window still gives new entries a chance to build up frequency.
+ * <p>
+ * Entries can optionally expire a fixed time after they were written. Hit, miss and eviction counters are kept to
+ * help sizing the cache.
+ * <p>
+ * {@code null} keys and values are not permitted.
+ */
+public final class TinyLFUCache<K, V> {
+
+  // a stripe should hold at least this amount of entries
+  private static final int MIN_STRIPE_SIZE = 16;
+  private static final int MAX_STRIPES = ceilingPowerOfTwo(Math.min(64, Runtime.getRuntime().availableProcessors() * 2));
+
+  private final Stripe<K, V>[] stripes;
+  private final int mask;
+  private final long expireAfterWriteNanos;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Creates a cache without expiration.
+   *
+   * @param maxSize the maximum amount of entries
+   */
+  public TinyLFUCache(int maxSize) {
+    this(maxSize, 0);
+  }
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxSize the maximum amount of entries
+   * @param expireAfterWrite the time in milliseconds an entry is valid after being written, {@code 0} for no
+   *                         expiration
+   */
+  @SuppressWarnings("unchecked")
+  public TinyLFUCache(int maxSize, long expireAfterWrite) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be >= 1");
+    }
+    if (expireAfterWrite < 0) {
+      throw new IllegalArgumentException("expireAfterWrite must be >= 0");
+    }
+    int count = 1;
+    while (count < MAX_STRIPES && (long) count * 2 * MIN_STRIPE_SIZE <= maxSize) {
+      count <<= 1;
+    }
+    stripes = new Stripe[count];
+    for (int i = 0; i < count; i++) {
+      // spread the remainder so the total capacity is exactly maxSize
+      stripes[i] = new Stripe<>(maxSize / count + (i < maxSize % count ? 1 : 0));
+    }
+    mask = count - 1;
+    expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(expireAfterWrite);
+  }
+
+  /**
+   * Returns the value of the key or {@code null} if the key is not cached or the entry expired.
+   */
+  public V get(K key) {
+    final int hash = hash(key);
+    final Stripe<K, V> stripe = stripes[hash & mask];
+    final V value;
+    synchronized (stripe) {
+      value = stripe.get(key, hash, expireAfterWriteNanos);
+    }
+    if (value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Caches the value of the key. A new key may not be retained when the cache is full and the key is not used more
+   * often than the entry it would replace.
+   */
+  public void put(K key, V value) {
+    Objects.requireNonNull(value, "value");
+    final int hash = hash(key);
+    final Stripe<K, V> stripe = stripes[hash & mask];
+    final int evicted;
+    synchronized (stripe) {
+      evicted = stripe.put(key, hash, new Node<>(value, expireAfterWriteNanos > 0 ? System.nanoTime() : 0));
+    }
+    if (evicted > 0) {
+      evictions.add(evicted);
+    }
+  }
+
+  /**
+   * Removes the key from the cache.
+   *
+   * @return the previous value or {@code null}
+   */
+  public V remove(K key) {
+    final Stripe<K, V> stripe = stripes[hash(key) & mask];
+    final Node<V> node;
+    synchronized (stripe) {
+      node = stripe.remove(key);
+    }
+    return node == null ? null : node.value;
+  }
+
+  /**
+   * Removes all entries, the counters are not reset.
+   */
+  public void clear() {
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        stripe.window.clear();
+        stripe.main.clear();
+      }
+    }
+  }
+
+  /**
+   * @return the amount of cached entries, including the expired entries that were not yet removed
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.window.size() + stripe.main.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @return the number of lookups that returned a value
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of lookups that did not return a value
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * @return the number of entries discarded or not admitted because of the size limit
+   */
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  private static int hash(Object key) {
+    // the low bits select the stripe and the sketch counters, so mix the high bits in
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int ceilingPowerOfTwo(int value) {
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  private static final class Node<V> {
+
+    final V value;
+    final long writeTime;
+
+    Node(V value, long writeTime) {
+      this.value = value;
+      this.writeTime = writeTime;
+    }
+  }
+
+  /**
+   * A W-TinyLFU segment, guarded by its own monitor.
+   */
+  private static final class Stripe<K, V> {
+
+    // access ordered, the eldest entry is the least recently used
+    final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    final LinkedHashMap<K, Node<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    final FrequencySketch sketch;
+    final int windowSize;
+    final int mainSize;
+
+    Stripe(int capacity) {
+      // the window holds ~1% of the entries, enough to absorb bursts of new keys
+      windowSize = Math.max(1, capacity / 100);
+      mainSize = capacity - windowSize;
+      sketch = new FrequencySketch(capacity);
+    }
+
+    V get(K key, int hash, long expireAfterWriteNanos) {
+      sketch.increment(hash);
+      Node<V> node = window.get(key);
+      if (node == null) {
+        node = main.get(key);
+        if (node == null) {
+          return null;
+        }
+      }
+      if (expireAfterWriteNanos > 0 && System.nanoTime() - node.writeTime > expireAfterWriteNanos) {
+        remove(key);
+        return null;
+      }
+      return node.value;
+    }
+
+    /**
+     * @return the number of evicted entries
+     */
+    int put(K key, int hash, Node<V> node) {
+      sketch.increment(hash);
+      if (window.containsKey(key)) {
+        window.put(key, node);
+        return 0;
+      }
+      if (main.containsKey(key)) {
+        main.put(key, node);
+        return 0;
+      }
+      window.put(key, node);
+      if (window.size() <= windowSize) {
+        return 0;
+      }
+      // the window overflowed, its eldest entry becomes a candidate to the main space
+      final Map.Entry<K, Node<V>> candidate = removeEldest(window);
+      if (main.size() < mainSize) {
+        main.put(candidate.getKey(), candidate.getValue());
+        return 0;
+      }
+      if (mainSize == 0) {
+        return 1;
+      }
+      final Iterator<Map.Entry<K, Node<V>>> it = main.entrySet().iterator();
+      final K victim = it.next().getKey();
+      if (sketch.frequency(hash(candidate.getKey())) > sketch.frequency(hash(victim))) {
+        it.remove();
+        main.put(candidate.getKey(), candidate.getValue());
+      }
+      // either the victim or the candidate is discarded
+      return 1;
+    }
+
+    Node<V> remove(K key) {
+      final Node<V> node = window.remove(key);
+      return node != null ? node : main.remove(key);
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> map) {
+      final Iterator<Map.Entry<K, V>> it = map.entrySet().iterator();
+      final Map.Entry<K, V> eldest = it.next();
+      // the entry view is no longer valid after the removal
+      final Map.Entry<K, V> copy = new AbstractMap.SimpleImmutableEntry<>(eldest);
+      it.remove();
+      return copy;
+    }
+  }
+
+  /**
+   * A count-min sketch of 4 bit counters, four counters per key. Counters saturate at 15 and are halved after a
+   * sample of ten times the capacity increments, so the sketch reflects the recent popularity.
+   */
+  static final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int counterMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+      // 16 counters per long, at least 4 counters per cached entry
+      table = new long[Math.max(1, ceilingPowerOfTwo(Math.max(1, capacity)) >>> 2)];
+      counterMask = (table.length << 4) - 1;
+      sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    int frequency(int hash) {
+      int frequency = 15;
+      for (int i = 0; i < 4; i++) {
+        final int counter = counter(hash, i);
+        frequency = Math.min(frequency, (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 0xfL));
+      }
+      return frequency;
+    }
+
+    void increment(int hash) {
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        final int counter = counter(hash, i);
+        final int index = counter >>> 4;
+        final int offset = (counter & 15) << 2;
+        if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+          table[index] += 1L << offset;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    private void reset() {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      additions >>>= 1;
+    }
+
+    private int counter(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return (int) h & counterMask;
+    }
+  }
+}
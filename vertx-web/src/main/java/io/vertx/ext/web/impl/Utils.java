@@ -51,8 +51,41 @@ public class Utils {
 
   private static final ZoneId ZONE_GMT = ZoneId.of("GMT");
 
+  // RFC1123 dates have a second precision, so the formatted value of the current second (Date headers, log
+  // timestamps) and of the last other second (Last-Modified headers) are reused
+  private static volatile FormattedDate currentDate = new FormattedDate(Long.MIN_VALUE, null);
+  private static volatile FormattedDate lastDate = new FormattedDate(Long.MIN_VALUE, null);
+
+  private static final class FormattedDate {
+    final long second;
+    final String value;
+
+    FormattedDate(long second, String value) {
+      this.second = second;
+      this.value = value;
+    }
+  }
+
   public static String formatRFC1123DateTime(final long time) {
-    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(time).atZone(ZONE_GMT));
+    final long second = Math.floorDiv(time, 1000L);
+
+    FormattedDate date = currentDate;
+    if (date.second == second) {
+      return date.value;
+    }
+    date = lastDate;
+    if (date.second == second) {
+      return date.value;
+    }
+
+    date = new FormattedDate(second, DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(time).atZone(ZONE_GMT)));
+    // a racing thread may replace the value with the one of another second, which is still correct
+    if (Math.abs(second - System.currentTimeMillis() / 1000L) <= 1) {
+      currentDate = date;
+    } else {
+      lastDate = date;
+    }
+    return date.value;
   }
 
   public static long parseRFC1123DateTime(final String header) {
@@ -259,6 +259,17 @@ public abstract class AbstractSession implements Session, SessionInternal {
     }
   }
 
+  /**
+   * Undo an {@link #incrementVersion()} when the session could not be stored.
+   *
+   * @param version the version before the increment
+   * @param crc the checksum before the increment
+   */
+  protected void rollbackVersion(int version, int crc) {
+    this.version = version;
+    this.crc = crc;
+  }
+
   private static String generateId(VertxContextPRNG rng, int length) {
     final byte[] bytes = new byte[length];
     rng.nextBytes(bytes);
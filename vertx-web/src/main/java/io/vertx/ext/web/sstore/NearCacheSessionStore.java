@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore;
+
+import io.vertx.codegen.annotations.VertxGen;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.sstore.impl.NearCacheSessionStoreImpl;
+
+/**
+ * A session store keeping a local copy of the sessions of another store, e.g. a {@link ClusteredSessionStore} or a
+ * Redis store, so the sessions of the clients coming back to the same node are read without a remote lookup.
+ * <p>
+ * The copies are kept for a short time and the amount of copies is bounded. Writes always go to the other store,
+ * which validates the version of the session as usual, and the nodes sharing the invalidation address are notified
+ * over the event bus so they discard their outdated copies. A copy can be outdated for at most the time to live when
+ * a notification is missed. Writes which leave the version of the session unchanged, e.g. the session was only
+ * accessed, are not notified.
+ * <p>
+ * Only sessions which can be serialized, such as the sessions of the clustered and Redis stores, are cached.
+ */
+@VertxGen
+public interface NearCacheSessionStore extends SessionStore {
+
+  /**
+   * Default maximum amount of cached sessions
+   */
+  int DEFAULT_MAX_SIZE = 10_000;
+
+  /**
+   * Default time in ms a cached session is used before being read again from the other store
+   */
+  long DEFAULT_TTL = 5 * 1000; // 5 seconds
+
+  /**
+   * The default event bus address of the invalidation notifications
+   */
+  String DEFAULT_INVALIDATION_ADDRESS = "vertx-web.sessions.invalidation";
+
+  /**
+   * Create a near cache in front of the given store, with the default options.
+   *
+   * @param vertx  the Vert.x instance
+   * @param delegate  the store holding the sessions
+   * @return the session store
+   */
+  static NearCacheSessionStore create(Vertx vertx, SessionStore delegate) {
+    return create(vertx, delegate, new JsonObject());
+  }
+
+  /**
+   * Create a near cache in front of the given store.<p/>
+   *
+   * The options are:
+   *
+   * <ul>
+   *   <li>{@code maxSize}: the maximum amount of cached sessions</li>
+   *   <li>{@code ttl}: the time in ms a cached session is used before being read again from the other store</li>
+   *   <li>{@code invalidationAddress}: the event bus address where the writes are notified to the other nodes</li>
+   * </ul>
+   *
+   * @param vertx  the Vert.x instance
+   * @param delegate  the store holding the sessions
+   * @param options  the cache options
+   * @return the session store
+   */
+  static NearCacheSessionStore create(Vertx vertx, SessionStore delegate, JsonObject options) {
+    NearCacheSessionStoreImpl store = new NearCacheSessionStoreImpl(delegate);
+    store.init(vertx, options);
+    return store;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.shareddata.impl.ClusterSerializable;
+import io.vertx.ext.web.sstore.impl.BinarySessionCodec;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Encodes the data of the sessions kept outside of the JVM, e.g. by the clustered, Redis and cookie session stores.
+ * <p>
+ * The codec in use is {@link #CODEC}, it is loaded with the {@link java.util.ServiceLoader} so an application can
+ * provide its own implementation, by default it is a compact binary codec. The encoded data must not start with a
+ * {@code 0} byte, this byte identifies the data written before codecs existed, which can still be read.
+ * <p>
+ * The classes of the {@link ClusterSerializable} values should be registered with an id on every node, the id is
+ * written instead of the class name and the registered factory creates the instances when reading, instead of
+ * reflection. Ids below {@code 16} are reserved, {@link io.vertx.core.json.JsonObject} and
+ * {@link io.vertx.core.json.JsonArray} are registered by default.
+ * <p>
+ * The codec is shared by all the stores of the JVM, it must be configured at startup, before the first session is
+ * read or written. Once it is in use its configuration can no longer change.
+ */
+public interface SessionCodec {
+
+  /**
+   * The codec used by the session stores.
+   */
+  SessionCodec CODEC = BinarySessionCodec.load();
+
+  /**
+   * Register the class of a session value with an id, the id must be the same on every node reading the sessions.
+   *
+   * @param id  the id of the class
+   * @param type  the class of the values
+   * @param factory  creates the empty instances the values are read into
+   * @return reference to this for fluency
+   * @throws IllegalStateException when the codec is already in use
+   */
+  <T extends ClusterSerializable> SessionCodec register(int id, Class<T> type, Supplier<T> factory);
+
+  /**
+   * Set the size in bytes from which the encoded data is compressed, {@code 0} to never compress. Codecs without
+   * compression ignore it.
+   *
+   * @param compressionThreshold  the size in bytes
+   * @return reference to this for fluency
+   * @throws IllegalStateException when the codec is already in use
+   */
+  SessionCodec setCompressionThreshold(int compressionThreshold);
+
+  /**
+   * Check whether a session value can be encoded, encoding a value which cannot fails with an
+   * {@link IllegalStateException}.
+   *
+   * @param value  the value
+   * @return {@code true} when the value can be encoded
+   */
+  boolean canEncode(Object value);
+
+  /**
+   * Append the data of a session to a buffer.
+   *
+   * @param data  the session data
+   * @param buffer  the buffer to append to
+   */
+  void encode(Map<String, Object> data, Buffer buffer);
+
+  /**
+   * Read the data of a session written by {@link #encode(Map, Buffer)}.
+   *
+   * @param pos  the position of the data in the buffer
+   * @param buffer  the buffer to read from
+   * @param data  the map receiving the session data
+   * @return the position after the data
+   */
+  int decode(int pos, Buffer buffer, Map<String, Object> data);
+
+  /**
+   * Encode a single session value.
+   *
+   * @param value  the value
+   * @return the encoded value
+   */
+  Buffer encodeValue(Object value);
+
+  /**
+   * Decode a single session value written by {@link #encodeValue(Object)}.
+   *
+   * @param buffer  the encoded value
+   * @return the value
+   */
+  Object decodeValue(Buffer buffer);
+}
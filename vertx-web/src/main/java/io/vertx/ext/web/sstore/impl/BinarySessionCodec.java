@@ -0,0 +1,462 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.impl;
+
+import io.vertx.core.ServiceHelper;
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.impl.ClusterSerializable;
+import io.vertx.ext.web.impl.Utils;
+import io.vertx.ext.web.sstore.SessionCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The default session codec.
+ * <p>
+ * The data is a format byte followed by the number of entries and the entries, a key and a typed value each. Lengths
+ * and numbers are written as variable length integers, the classes of the registered values as ids. When the
+ * entries reach the compression threshold they are deflated, the format byte is then followed by the length of the
+ * entries and the length of the deflated entries.
+ */
+public class BinarySessionCodec implements SessionCodec {
+
+  /**
+   * Default size in bytes from which the session data is compressed
+   */
+  public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+  // never 0, which is the first byte of the data written before codecs existed
+  private static final byte FORMAT = 0x40;
+  private static final byte DEFLATED = 0x01;
+
+  private static final byte TYPE_LONG = 1;
+  private static final byte TYPE_INT = 2;
+  private static final byte TYPE_SHORT = 3;
+  private static final byte TYPE_BYTE = 4;
+  private static final byte TYPE_DOUBLE = 5;
+  private static final byte TYPE_FLOAT = 6;
+  private static final byte TYPE_CHAR = 7;
+  private static final byte TYPE_BOOLEAN = 8;
+  private static final byte TYPE_STRING = 9;
+  private static final byte TYPE_BUFFER = 10;
+  private static final byte TYPE_BYTES = 11;
+  private static final byte TYPE_CLUSTER_SERIALIZABLE = 13;
+  private static final byte TYPE_REGISTERED = 14;
+
+  private final Map<Integer, Supplier<? extends ClusterSerializable>> factories = new ConcurrentHashMap<>();
+  private final Map<Integer, Class<?>> types = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Integer> ids = new ConcurrentHashMap<>();
+  private volatile int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+  // set once data was encoded or decoded, the configuration can no longer change
+  private volatile boolean frozen;
+
+  public BinarySessionCodec() {
+    register(1, JsonObject.class, JsonObject::new);
+    register(2, JsonArray.class, JsonArray::new);
+  }
+
+  /**
+   * @return the codec provided by the application, or the default codec
+   */
+  public static SessionCodec load() {
+    final SessionCodec codec = ServiceHelper.loadFactoryOrNull(SessionCodec.class);
+    return codec == null ? new BinarySessionCodec() : codec;
+  }
+
+  @Override
+  public synchronized <T extends ClusterSerializable> SessionCodec register(int id, Class<T> type, Supplier<T> factory) {
+    Objects.requireNonNull(type, "type");
+    Objects.requireNonNull(factory, "factory");
+    if (id < 1) {
+      throw new IllegalArgumentException("id must be > 0");
+    }
+    checkNotFrozen();
+    final Class<?> registered = types.get(id);
+    if (registered != null && registered != type) {
+      throw new IllegalStateException("id " + id + " is already registered for " + registered.getName());
+    }
+    types.put(id, type);
+    factories.put(id, factory);
+    ids.put(type, id);
+    return this;
+  }
+
+  @Override
+  public synchronized SessionCodec setCompressionThreshold(int compressionThreshold) {
+    checkNotFrozen();
+    this.compressionThreshold = compressionThreshold;
+    return this;
+  }
+
+  @Override
+  public boolean canEncode(Object value) {
+    // null values are skipped
+    return value == null
+      || value instanceof Long
+      || value instanceof Integer
+      || value instanceof Short
+      || value instanceof Byte
+      || value instanceof Double
+      || value instanceof Float
+      || value instanceof Character
+      || value instanceof Boolean
+      || value instanceof String
+      || value instanceof Buffer
+      || value instanceof byte[]
+      || value instanceof ClusterSerializable;
+  }
+
+  @Override
+  public void encode(Map<String, Object> data, Buffer buffer) {
+    freeze();
+    final Buffer entries = Buffer.buffer();
+    int size = 0;
+    for (Map.Entry<String, Object> entry : data.entrySet()) {
+      if (entry.getValue() == null) {
+        continue;
+      }
+      writeString(entries, entry.getKey());
+      writeValue(entries, entry.getValue());
+      size++;
+    }
+
+    final Buffer payload = Buffer.buffer(entries.length() + 5);
+    writeVarInt(payload, size);
+    payload.appendBuffer(entries);
+
+    final int threshold = compressionThreshold;
+    if (threshold > 0 && payload.length() >= threshold) {
+      final byte[] deflated = deflate(payload.getBytes());
+      // random data does not compress
+      if (deflated.length < payload.length()) {
+        buffer.appendByte((byte) (FORMAT | DEFLATED));
+        writeVarInt(buffer, payload.length());
+        writeVarInt(buffer, deflated.length);
+        buffer.appendBytes(deflated);
+        return;
+      }
+    }
+
+    buffer.appendByte(FORMAT);
+    buffer.appendBuffer(payload);
+  }
+
+  @Override
+  public int decode(int pos, Buffer buffer, Map<String, Object> data) {
+    freeze();
+    final byte format = buffer.getByte(pos++);
+    if ((format & ~DEFLATED) != FORMAT) {
+      throw new IllegalStateException("Invalid session data format: " + format);
+    }
+
+    final Reader reader;
+    final int end;
+    if ((format & DEFLATED) != 0) {
+      final Reader header = new Reader(buffer, pos);
+      final int length = header.readVarInt();
+      final int deflatedLength = header.readVarInt();
+      end = header.pos + deflatedLength;
+      reader = new Reader(Buffer.buffer(inflate(buffer.getBytes(header.pos, end), length)), 0);
+    } else {
+      reader = new Reader(buffer, pos);
+      end = -1;
+    }
+
+    final int size = reader.readVarInt();
+    for (int i = 0; i < size; i++) {
+      final String key = reader.readString();
+      data.put(key, readValue(reader));
+    }
+
+    return end == -1 ? reader.pos : end;
+  }
+
+  @Override
+  public Buffer encodeValue(Object value) {
+    freeze();
+    final Buffer buffer = Buffer.buffer();
+    writeValue(buffer, value);
+    return buffer;
+  }
+
+  @Override
+  public Object decodeValue(Buffer buffer) {
+    freeze();
+    return readValue(new Reader(buffer, 0));
+  }
+
+  private void freeze() {
+    if (!frozen) {
+      frozen = true;
+    }
+  }
+
+  private void checkNotFrozen() {
+    if (frozen) {
+      throw new IllegalStateException("The session codec is already in use");
+    }
+  }
+
+  private void writeValue(Buffer buffer, Object val) {
+    if (val instanceof Long) {
+      buffer.appendByte(TYPE_LONG);
+      writeVarLong(buffer, zigZag((long) val));
+    } else if (val instanceof Integer) {
+      buffer.appendByte(TYPE_INT);
+      writeVarInt(buffer, zigZag((int) val));
+    } else if (val instanceof Short) {
+      buffer.appendByte(TYPE_SHORT).appendShort((short) val);
+    } else if (val instanceof Byte) {
+      buffer.appendByte(TYPE_BYTE).appendByte((byte) val);
+    } else if (val instanceof Double) {
+      buffer.appendByte(TYPE_DOUBLE).appendDouble((double) val);
+    } else if (val instanceof Float) {
+      buffer.appendByte(TYPE_FLOAT).appendFloat((float) val);
+    } else if (val instanceof Character) {
+      buffer.appendByte(TYPE_CHAR).appendShort((short) ((Character) val).charValue());
+    } else if (val instanceof Boolean) {
+      buffer.appendByte(TYPE_BOOLEAN).appendByte((byte) ((boolean) val ? 1 : 0));
+    } else if (val instanceof String) {
+      buffer.appendByte(TYPE_STRING);
+      writeString(buffer, (String) val);
+    } else if (val instanceof Buffer) {
+      final Buffer buff = (Buffer) val;
+      buffer.appendByte(TYPE_BUFFER);
+      writeVarInt(buffer, buff.length());
+      buffer.appendBuffer(buff);
+    } else if (val instanceof byte[]) {
+      final byte[] bytes = (byte[]) val;
+      buffer.appendByte(TYPE_BYTES);
+      writeVarInt(buffer, bytes.length);
+      buffer.appendBytes(bytes);
+    } else if (val instanceof ClusterSerializable) {
+      final Integer id = ids.get(val.getClass());
+      if (id != null) {
+        buffer.appendByte(TYPE_REGISTERED);
+        writeVarInt(buffer, id);
+      } else {
+        buffer.appendByte(TYPE_CLUSTER_SERIALIZABLE);
+        writeString(buffer, val.getClass().getName());
+      }
+      ((ClusterSerializable) val).writeToBuffer(buffer);
+    } else {
+      throw new IllegalStateException("Invalid type for data in session: " + val.getClass());
+    }
+  }
+
+  private Object readValue(Reader reader) {
+    final Buffer buffer = reader.buffer;
+    final byte type = buffer.getByte(reader.pos++);
+    Object val;
+    switch (type) {
+      case TYPE_LONG:
+        return unZigZag(reader.readVarLong());
+      case TYPE_INT:
+        return unZigZag(reader.readVarInt());
+      case TYPE_SHORT:
+        val = buffer.getShort(reader.pos);
+        reader.pos += 2;
+        return val;
+      case TYPE_BYTE:
+        return buffer.getByte(reader.pos++);
+      case TYPE_FLOAT:
+        val = buffer.getFloat(reader.pos);
+        reader.pos += 4;
+        return val;
+      case TYPE_DOUBLE:
+        val = buffer.getDouble(reader.pos);
+        reader.pos += 8;
+        return val;
+      case TYPE_CHAR:
+        val = (char) buffer.getShort(reader.pos);
+        reader.pos += 2;
+        return val;
+      case TYPE_BOOLEAN:
+        return buffer.getByte(reader.pos++) == 1;
+      case TYPE_STRING:
+        return reader.readString();
+      case TYPE_BUFFER:
+        return Buffer.buffer(reader.readBytes());
+      case TYPE_BYTES:
+        return reader.readBytes();
+      case TYPE_REGISTERED:
+        final int id = reader.readVarInt();
+        final Supplier<? extends ClusterSerializable> factory = factories.get(id);
+        if (factory == null) {
+          throw new IllegalStateException("No class registered with id: " + id);
+        }
+        return readClusterSerializable(reader, factory.get());
+      case TYPE_CLUSTER_SERIALIZABLE:
+        return readClusterSerializable(reader, newInstance(reader.readString()));
+      default:
+        throw new IllegalStateException("Invalid serialized type: " + type);
+    }
+  }
+
+  private static ClusterSerializable readClusterSerializable(Reader reader, ClusterSerializable obj) {
+    reader.pos = obj.readFromBuffer(reader.pos, reader.buffer);
+    return obj;
+  }
+
+  private static ClusterSerializable newInstance(String className) {
+    try {
+      final Class<?> clazz = Utils.getClassLoader().loadClass(className);
+      if (!ClusterSerializable.class.isAssignableFrom(clazz)) {
+        throw new ClassCastException(className + " is not assignable from ClusterSerializable");
+      }
+      return (ClusterSerializable) clazz.getDeclaredConstructor().newInstance();
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException | InstantiationException e) {
+      throw new VertxException(e);
+    }
+  }
+
+  private static void writeString(Buffer buffer, String value) {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(buffer, bytes.length);
+    buffer.appendBytes(bytes);
+  }
+
+  private static void writeVarInt(Buffer buffer, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.appendByte((byte) value);
+  }
+
+  private static void writeVarLong(Buffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.appendByte((byte) value);
+  }
+
+  // small negative numbers get small encodings too
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static byte[] deflate(byte[] bytes) {
+    final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+      final byte[] chunk = new byte[4096];
+      while (!deflater.finished()) {
+        out.write(chunk, 0, deflater.deflate(chunk));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] bytes, int length) {
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes);
+      final byte[] out = new byte[length];
+      int read = 0;
+      while (read < length && !inflater.finished()) {
+        final int n = inflater.inflate(out, read, length - read);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        read += n;
+      }
+      if (read != length) {
+        throw new IllegalStateException("Invalid compressed session data");
+      }
+      return out;
+    } catch (DataFormatException e) {
+      throw new VertxException(e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static final class Reader {
+
+    private final Buffer buffer;
+    private int pos;
+
+    Reader(Buffer buffer, int pos) {
+      this.buffer = buffer;
+      this.pos = pos;
+    }
+
+    int readVarInt() {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        final byte b = buffer.getByte(pos++);
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      throw new IllegalStateException("Invalid variable length integer");
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final byte b = buffer.getByte(pos++);
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      throw new IllegalStateException("Invalid variable length integer");
+    }
+
+    byte[] readBytes() {
+      final int length = readVarInt();
+      final byte[] bytes = buffer.getBytes(pos, pos + length);
+      pos += length;
+      return bytes;
+    }
+
+    String readString() {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
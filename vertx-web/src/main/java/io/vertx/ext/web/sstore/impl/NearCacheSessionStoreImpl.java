@@ -0,0 +1,240 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.impl.ClusterSerializable;
+import io.vertx.ext.auth.VertxContextPRNG;
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.impl.TinyLFUCache;
+import io.vertx.ext.web.sstore.AbstractSession;
+import io.vertx.ext.web.sstore.NearCacheSessionStore;
+import io.vertx.ext.web.sstore.SessionStore;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class NearCacheSessionStoreImpl implements NearCacheSessionStore {
+
+  private SessionStore delegate;
+  private Vertx vertx;
+  private String address;
+  private TinyLFUCache<String, Entry> cache;
+  private MessageConsumer<JsonObject> consumer;
+  private VertxContextPRNG random;
+  private final Map<Class<?>, Function<Long, Session>> factories = new ConcurrentHashMap<>();
+
+  public NearCacheSessionStoreImpl() {
+    // the store holding the sessions is created from the options
+  }
+
+  public NearCacheSessionStoreImpl(SessionStore delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public SessionStore init(Vertx vertx, JsonObject options) {
+    this.vertx = vertx;
+    if (delegate == null) {
+      delegate = SessionStore.create(vertx, options);
+    }
+    random = VertxContextPRNG.current(vertx);
+    address = options.getString("invalidationAddress", DEFAULT_INVALIDATION_ADDRESS);
+    cache = new TinyLFUCache<>(
+      options.getInteger("maxSize", DEFAULT_MAX_SIZE),
+      options.getLong("ttl", DEFAULT_TTL));
+    consumer = vertx.eventBus().<JsonObject>consumer(address, message -> invalidate(message.body()));
+    return this;
+  }
+
+  @Override
+  public long retryTimeout() {
+    return delegate.retryTimeout();
+  }
+
+  @Override
+  public Session createSession(long timeout) {
+    return delegate.createSession(timeout);
+  }
+
+  @Override
+  public Session createSession(long timeout, int length) {
+    return delegate.createSession(timeout, length);
+  }
+
+  @Override
+  public void get(String id, Handler<AsyncResult<Session>> resultHandler) {
+    final Entry entry = cache.get(id);
+    if (entry != null) {
+      final Session session = entry.session();
+      // the other store does not return expired sessions either
+      if (session != null && session.lastAccessed() + session.timeout() > System.currentTimeMillis()) {
+        resultHandler.handle(Future.succeededFuture(session));
+        return;
+      }
+      cache.remove(id);
+    }
+
+    delegate.get(id, get -> {
+      if (get.succeeded() && get.result() != null) {
+        cache(get.result());
+      }
+      resultHandler.handle(get);
+    });
+  }
+
+  @Override
+  public void delete(String id, Handler<AsyncResult<Void>> resultHandler) {
+    cache.remove(id);
+    delegate.delete(id, delete -> {
+      publish(new JsonObject().put("id", id));
+      resultHandler.handle(delete);
+    });
+  }
+
+  @Override
+  public void put(Session session, Handler<AsyncResult<Void>> resultHandler) {
+    // the other store increments the version when the data changed
+    final int version = session instanceof AbstractSession ? ((AbstractSession) session).version() : -1;
+    delegate.put(session, put -> {
+      if (put.succeeded()) {
+        if (version != -1 && version == ((AbstractSession) session).version()) {
+          // the data did not change, the copies of the nodes are still valid
+          resultHandler.handle(put);
+          return;
+        }
+        cache(session);
+        // the other nodes discard their copies of a previous version
+        JsonObject invalidation = new JsonObject().put("id", session.id());
+        if (version != -1) {
+          invalidation.put("version", ((AbstractSession) session).version());
+        }
+        publish(invalidation);
+      } else {
+        // most likely a version mismatch, the copy is outdated
+        cache.remove(session.id());
+      }
+      resultHandler.handle(put);
+    });
+  }
+
+  @Override
+  public void clear(Handler<AsyncResult<Void>> resultHandler) {
+    cache.clear();
+    delegate.clear(clear -> {
+      publish(new JsonObject().put("clear", true));
+      resultHandler.handle(clear);
+    });
+  }
+
+  @Override
+  public void size(Handler<AsyncResult<Integer>> resultHandler) {
+    delegate.size(resultHandler);
+  }
+
+  @Override
+  public void close() {
+    consumer.unregister();
+    cache.clear();
+    delegate.close();
+  }
+
+  private void cache(Session session) {
+    if (session instanceof ClusterSerializable) {
+      // a copy is cached, the session itself is modified by the request using it
+      final Buffer buffer = Buffer.buffer();
+      ((ClusterSerializable) session).writeToBuffer(buffer);
+      final int version = session instanceof AbstractSession ? ((AbstractSession) session).version() : -1;
+      cache.put(session.id(), new Entry(factories.computeIfAbsent(session.getClass(), this::factory), buffer, session.timeout(), version));
+    }
+  }
+
+  /**
+   * Finds how to create the empty sessions the copies are read into, without generating an id which would be
+   * overwritten by the copy. Other sessions are created by the other store.
+   */
+  private Function<Long, Session> factory(Class<?> type) {
+    try {
+      final Constructor<?> constructor = type.getConstructor(VertxContextPRNG.class);
+      return timeout -> {
+        try {
+          return (Session) constructor.newInstance(random);
+        } catch (ReflectiveOperationException e) {
+          throw new VertxException(e);
+        }
+      };
+    } catch (NoSuchMethodException e) {
+      return delegate::createSession;
+    }
+  }
+
+  private void invalidate(JsonObject invalidation) {
+    if (invalidation.getBoolean("clear", false)) {
+      cache.clear();
+      return;
+    }
+    final String id = invalidation.getString("id");
+    if (id == null) {
+      return;
+    }
+    final Integer version = invalidation.getInteger("version");
+    final Entry entry = cache.get(id);
+    // the node which wrote the session already has the new version
+    if (entry != null && (version == null || entry.version == -1 || entry.version != version)) {
+      cache.remove(id);
+    }
+  }
+
+  private void publish(JsonObject invalidation) {
+    vertx.eventBus().publish(address, invalidation);
+  }
+
+  private final class Entry {
+
+    private final Function<Long, Session> factory;
+    private final Buffer buffer;
+    private final long timeout;
+    private final int version;
+
+    private Entry(Function<Long, Session> factory, Buffer buffer, long timeout, int version) {
+      this.factory = factory;
+      this.buffer = buffer;
+      this.timeout = timeout;
+      this.version = version;
+    }
+
+    /**
+     * @return a new copy of the cached session, or {@code null} if the other store creates sessions of another type
+     */
+    Session session() {
+      final Session session = factory.apply(timeout);
+      if (!(session instanceof ClusterSerializable)) {
+        return null;
+      }
+      ((ClusterSerializable) session).readFromBuffer(0, buffer);
+      return session;
+    }
+  }
+}
@@ -25,6 +25,7 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.core.net.SocketAddress;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.ResponseContentTypeHandler;
+import io.vertx.ext.web.impl.AcceptNegotiationCache;
 import io.vertx.ext.web.impl.RoutingContextInternal;
 import org.junit.Test;
 
@@ -35,6 +36,7 @@ import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static io.vertx.core.Future.succeededFuture;
@@ -1188,6 +1190,21 @@ public class RouterTest extends WebTestBase {
     testRequestWithAccepts(HttpMethod.GET, "/foo", "application/blah", 406, "Not Acceptable");
   }
 
+  @Test
+  public void testProducesNegotiationCached() throws Exception {
+    AcceptNegotiationCache cache = AcceptNegotiationCache.instance();
+    Route route = router.route().produces("text/html").handler(rc -> rc.response().end(rc.getAcceptableContentType()));
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("accept", "application/json, text/html;q=0.5"), 200, "OK", "text/html");
+    long hits = cache.hits();
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("accept", "application/json, text/html;q=0.5"), 200, "OK", "text/html");
+    assertTrue(cache.hits() > hits);
+    // the cached negotiation does not apply once the route produces other types
+    route.produces("application/json");
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("accept", "application/json, text/html;q=0.5"), 200, "OK", "application/json");
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("accept", "text/json"), 406, "Not Acceptable", null);
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("accept", "text/json"), 406, "Not Acceptable", null);
+  }
+
   @Test
   public void testProducesWithQParameterIgnored() throws Exception {
     router.route().produces("text/html;q").produces("text/html;q=0.1").handler(rc -> rc.response().end());
@@ -2115,6 +2132,22 @@ public class RouterTest extends WebTestBase {
     testRequest(HttpMethod.GET, "/foo", 200, "OK");
   }
 
+  @Test
+  public void testModifyParsedHeaders() throws Exception {
+    router.route().handler(rc -> {
+      // the application owns the returned lists, even when another request sent the same header
+      List<LanguageHeader> languages = rc.parsedHeaders().acceptLanguage();
+      assertEquals("da", languages.get(0).tag());
+      languages.remove(0);
+      assertSame(languages, rc.parsedHeaders().acceptLanguage());
+      rc.parsedHeaders().accept().clear();
+      rc.response().end();
+    });
+
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("Accept-Language", "da, en-gb;q=0.8"), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/foo", req -> req.putHeader("Accept-Language", "da, en-gb;q=0.8"), 200, "OK", null);
+  }
+
   @Test
   public void testUnderscoreOnRoutePath() throws Exception {
     router.route("/:account_id").handler(rc -> {
@@ -3071,4 +3104,93 @@ public class RouterTest extends WebTestBase {
       },
       400, "Bad Request", "returned in first error handler");
   }
+
+  @Test
+  public void testPoolContexts() throws Exception {
+    router.poolContexts(true);
+    AtomicReference<RoutingContext> previous = new AtomicReference<>();
+    router.route("/pooled/:id").handler(rc -> {
+      assertNull(rc.get("foo"));
+      rc.put("foo", rc.pathParam("id"));
+      rc.addEndHandler(v -> assertEquals(rc.pathParam("id"), rc.get("foo")));
+      // a context retained after the response ended is detected
+      RoutingContext retained = previous.getAndSet(rc);
+      if (retained != null) {
+        try {
+          retained.get("foo");
+          fail("Should not use a recycled context");
+        } catch (IllegalStateException e) {
+          // expected
+        }
+      }
+      rc.response().end(rc.get("foo") + rc.queryParams().get("q"));
+    });
+    testRequest(HttpMethod.GET, "/pooled/1?q=a", 200, "OK", "1a");
+    testRequest(HttpMethod.GET, "/pooled/2?q=b", 200, "OK", "2b");
+    testRequest(HttpMethod.GET, "/pooled/3", 200, "OK", "3null");
+  }
+
+  @Test
+  public void testPoolContextsConnectionClosed() throws Exception {
+    router.poolContexts(true);
+    client.request(HttpMethod.GET, server.actualPort(), "localhost", "/closed").onComplete(onSuccess(req -> {
+      router.route("/closed").handler(rc -> {
+        Map<String, Object> data = rc.data();
+        rc.put("foo", "bar");
+        rc.addEndHandler(onFailure(err -> vertx.setTimer(10, id -> {
+          // the handler still running owns the structures of its context
+          assertSame(data, rc.data());
+          assertEquals("bar", rc.get("foo"));
+          testComplete();
+        })));
+        req.connection().close();
+      });
+      req.end();
+    }));
+    await();
+  }
+
+  @Test
+  public void testManyRoutesKeepOrder() throws Exception {
+    for (int i = 0; i < 200; i++) {
+      router.get("/api/v1/resource" + i).handler(rc -> rc.response().end("exact"));
+    }
+    router.route("/api/v1/items/*").handler(rc -> rc.put("seen", "wildcard").next());
+    router.get("/api/v1/items/:id").handler(rc -> rc.response().end(rc.get("seen") + "-" + rc.pathParam("id")));
+    router.routeWithRegex("\\/other\\/.*").handler(rc -> rc.response().end("regex"));
+
+    testRequest(HttpMethod.GET, "/api/v1/resource150", 200, "OK", "exact");
+    testRequest(HttpMethod.GET, "/api/v1/resource150/", 200, "OK", "exact");
+    testRequest(HttpMethod.GET, "/api/v1/items/7", 200, "OK", "wildcard-7");
+    testRequest(HttpMethod.GET, "/other/path", 200, "OK", "regex");
+    testRequest(HttpMethod.POST, "/api/v1/resource150", 405, "Method Not Allowed");
+    testRequest(HttpMethod.GET, "/api/v2/resource150", 404, "Not Found");
+  }
+
+  @Test
+  public void testPathChangedAfterRouteAdded() throws Exception {
+    Route route = router.route().handler(rc -> rc.response().end("moved"));
+    testRequest(HttpMethod.GET, "/somewhere", 200, "OK", "moved");
+    route.path("/elsewhere");
+    testRequest(HttpMethod.GET, "/somewhere", 404, "Not Found");
+    testRequest(HttpMethod.GET, "/elsewhere", 200, "OK", "moved");
+  }
+
+  @Test
+  public void testExactRoutesMethodDispatch() throws Exception {
+    router.post("/x").handler(RoutingContext::next);
+    router.get("/x").handler(rc -> rc.response().end("get"));
+    router.get("/y").handler(rc -> rc.response().end("get"));
+    router.route("/y").handler(RoutingContext::next);
+    router.route(HttpMethod.valueOf("PURGE"), "/z").handler(rc -> rc.response().end("purge"));
+
+    testRequest(HttpMethod.GET, "/x", 200, "OK", "get");
+    testRequest(HttpMethod.PUT, "/x", 405, "Method Not Allowed");
+    // the GET route is evaluated after the POST route matched
+    testRequest(HttpMethod.POST, "/x", 405, "Method Not Allowed");
+    // the GET route is evaluated before the catch all route matched
+    testRequest(HttpMethod.POST, "/y", 404, "Not Found");
+    testRequest(HttpMethod.valueOf("PURGE"), "/z/", 200, "OK", "purge");
+    testRequest(HttpMethod.DELETE, "/z", 405, "Method Not Allowed");
+  }
 }
@@ -16,11 +16,14 @@
 
 package io.vertx.ext.web.handler;
 
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.MultiMap;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.FileUpload;
 import io.vertx.ext.web.Route;
@@ -89,6 +92,29 @@ public class BodyHandlerTest extends WebTestBase {
     }, 200, "OK", null);
   }
 
+  @Test
+  public void testCompositeBodyBuffer() throws Exception {
+    JsonArray json = new JsonArray();
+    for (int i = 0; i < 10000; i++) {
+      json.add(new JsonObject().put("id", i).put("name", "item" + i));
+    }
+    Buffer buff = json.toBuffer();
+    router.clear();
+    router.route().handler(BodyHandler.create().setCompositeBodyBuffer(true));
+    router.route().handler(rc -> {
+      assertEquals(json, rc.getBodyAsJsonArray());
+      assertEquals(buff, rc.getBody());
+      rc.response().end();
+    });
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      // several chunks
+      for (int i = 0; i < buff.length(); i += 8192) {
+        req.write(buff.slice(i, Math.min(buff.length(), i + 8192)));
+      }
+    }, 200, "OK", null);
+  }
+
   @Test
   public void testBodyString() throws Exception {
     String str = "sausages";
@@ -200,6 +226,55 @@ public class BodyHandlerTest extends WebTestBase {
     }, 413, "Request Entity Too Large", null);
   }
 
+  @Test
+  public void testDeclaredBodyTooBig() throws Exception {
+    router.clear();
+    router.route().handler(BodyHandler.create().setBodyLimit(5000));
+    Buffer buff = TestUtils.randomBuffer(10000);
+    router.route().handler(rc -> fail("Should not be called"));
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.putHeader("content-length", Integer.toString(buff.length()));
+      req.write(buff);
+    }, res -> {
+      // the body is not drained, the connection is closed instead
+      assertEquals("close", res.getHeader("connection"));
+    }, 413, "Request Entity Too Large", null);
+  }
+
+  @Test
+  public void testContentTypeBodyLimit() throws Exception {
+    router.clear();
+    router.route().handler(BodyHandler.create().setBodyLimit("application/json", 10));
+    router.route().handler(rc -> rc.response().end(rc.getBody()));
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "application/json; charset=utf-8");
+      req.write("{\"foo\":\"0123456789\"}");
+    }, 413, "Request Entity Too Large", null);
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "text/plain");
+      req.write("{\"foo\":\"0123456789\"}");
+    }, 200, "OK", "{\"foo\":\"0123456789\"}");
+  }
+
+  @Test
+  public void testRouteBodyLimit() throws Exception {
+    router.clear();
+    router.route("/small").putMetadata(BodyHandler.BODY_LIMIT, 10).handler(BodyHandler.create().setBodyLimit(1000));
+    router.route().handler(BodyHandler.create().setBodyLimit(1000));
+    router.route().handler(rc -> rc.response().end());
+    Buffer buff = TestUtils.randomBuffer(100);
+    testRequest(HttpMethod.POST, "/small", req -> {
+      req.setChunked(true);
+      req.write(buff);
+    }, 413, "Request Entity Too Large", null);
+    testRequest(HttpMethod.POST, "/other", req -> {
+      req.setChunked(true);
+      req.write(buff);
+    }, 200, "OK", null);
+  }
+
   @Test
   public void testBodyTooBig2() throws Exception {
     router.clear();
@@ -268,6 +343,37 @@ public class BodyHandlerTest extends WebTestBase {
     sendFileUploadRequest(fileData, 200, "OK");
   }
 
+  @Test
+  public void testFileUploadToStream() throws Exception {
+    String uploadsDir = getNotCreatedTemporaryFolderName();
+    File target = new File(tempUploads.newFolder(), "target.dat");
+    router.clear();
+    router.route().handler(BodyHandler.create(uploadsDir)
+      .setUploadStreamFactory(upload -> vertx.fileSystem().open(target.getPath(), new OpenOptions()).map(file -> file)));
+
+    Buffer fileData = TestUtils.randomBuffer(50000);
+    router.route().handler(rc -> {
+      Set<FileUpload> fileUploads = rc.fileUploads();
+      assertEquals(1, fileUploads.size());
+      FileUpload upload = fileUploads.iterator().next();
+      assertEquals("somefile.dat", upload.fileName());
+      assertNull(upload.uploadedFileName());
+      assertEquals(fileData, vertx.fileSystem().readFileBlocking(target.getPath()));
+      assertFalse("Upload directory must not be created.", vertx.fileSystem().existsBlocking(uploadsDir));
+      rc.response().end();
+    });
+    sendFileUploadRequest(fileData, 200, "OK");
+  }
+
+  @Test
+  public void testFileUploadToFailedStream() throws Exception {
+    router.clear();
+    router.route().handler(BodyHandler.create()
+      .setUploadStreamFactory(upload -> Future.failedFuture("boom")));
+    router.route().handler(rc -> fail("Should not be called"));
+    sendFileUploadRequest(TestUtils.randomBuffer(50), 500, "Internal Server Error");
+  }
+
   @Test
   public void testFileUploadTooBig() throws Exception {
     router.clear();
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.ext.web.WebTestBase;
+import io.vertx.test.core.TestUtils;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class CompressionHandlerTest extends WebTestBase {
+
+  private static final String LARGE = TestUtils.randomAlphaString(4096);
+
+  @Override
+  protected HttpServerOptions getHttpServerOptions() {
+    return super.getHttpServerOptions().setCompressionSupported(true);
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    router.route().handler(CompressionHandler.create());
+  }
+
+  @Test
+  public void testCompressible() throws Exception {
+    router.route().handler(rc -> rc.response().putHeader("content-type", "application/json").end(LARGE));
+    testEncoding(true, "gzip");
+  }
+
+  @Test
+  public void testSmallResponse() throws Exception {
+    router.route().handler(rc -> rc.response().putHeader("content-type", "application/json").end("{}"));
+    testEncoding(true, null);
+  }
+
+  @Test
+  public void testNotCompressible() throws Exception {
+    router.route().handler(rc -> rc.response().putHeader("content-type", "image/png").end(LARGE));
+    testEncoding(true, null);
+  }
+
+  @Test
+  public void testContentTypes() throws Exception {
+    router.clear();
+    router.route().handler(CompressionHandler.create().setContentTypes(Collections.singleton("image/*")).setMinSize(0));
+    router.route().handler(rc -> rc.response().putHeader("content-type", "image/png").end("{}"));
+    testEncoding(true, "gzip");
+  }
+
+  @Test
+  public void testChunkedResponse() throws Exception {
+    router.route().handler(rc -> rc.response()
+      .setChunked(true)
+      .putHeader("content-type", "text/plain")
+      .end("{}"));
+    testEncoding(true, "gzip");
+  }
+
+  @Test
+  public void testRouteMetadata() throws Exception {
+    router.route("/off").putMetadata(CompressionHandler.COMPRESSION, false)
+      .handler(rc -> rc.response().putHeader("content-type", "application/json").end(LARGE));
+    router.route("/on").putMetadata(CompressionHandler.COMPRESSION, true)
+      .handler(rc -> rc.response().putHeader("content-type", "image/png").end(LARGE));
+    testRequest(HttpMethod.GET, "/off", req -> req.putHeader("accept-encoding", "gzip"),
+      res -> assertNotEncoded(res.getHeader("content-encoding")), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/on", req -> req.putHeader("accept-encoding", "gzip"),
+      res -> assertEquals("gzip", res.getHeader("content-encoding")), 200, "OK", null);
+  }
+
+  @Test
+  public void testNoAcceptEncoding() throws Exception {
+    router.route().handler(rc -> rc.response().putHeader("content-type", "application/json").end(LARGE));
+    testEncoding(false, null);
+  }
+
+  @Test
+  public void testNoCompressedEncodingAccepted() throws Exception {
+    router.route().handler(rc -> rc.response().putHeader("content-type", "application/json").end("{}"));
+    // the server would not compress these responses, they do not need to opt out
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("accept-encoding", "identity"),
+      res -> assertNull(res.getHeader("content-encoding")), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("accept-encoding", "gzip;q=0"),
+      res -> assertNull(res.getHeader("content-encoding")), 200, "OK", null);
+    testRequest(HttpMethod.GET, "/", req -> req.putHeader("accept-encoding", "gzip"),
+      res -> assertEquals("identity", res.getHeader("content-encoding")), 200, "OK", null);
+  }
+
+  private void testEncoding(boolean acceptEncoding, String expected) throws Exception {
+    testRequest(HttpMethod.GET, "/", req -> {
+      if (acceptEncoding) {
+        req.putHeader("accept-encoding", "gzip");
+      }
+    }, res -> {
+      if (expected == null) {
+        assertNotEncoded(res.getHeader("content-encoding"));
+      } else {
+        assertEquals(expected, res.getHeader("content-encoding"));
+      }
+    }, 200, "OK", null);
+  }
+
+  private void assertNotEncoded(String contentEncoding) {
+    assertTrue(contentEncoding == null || "identity".equals(contentEncoding));
+  }
+}
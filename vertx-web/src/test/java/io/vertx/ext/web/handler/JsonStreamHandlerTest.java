@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.handler;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.web.WebTestBase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class JsonStreamHandlerTest extends WebTestBase {
+
+  @Test
+  public void testJsonBody() throws Exception {
+    JsonObject json = new JsonObject().put("foo", "bar").put("list", new JsonArray().add(1).add(2));
+    router.route().handler(JsonStreamHandler.create());
+    router.route().handler(rc -> {
+      assertEquals(json, rc.get(JsonStreamHandler.JSON_BODY));
+      assertNull(rc.getBody());
+      rc.response().end();
+    });
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "application/json");
+      String encoded = json.encode();
+      req.write(encoded.substring(0, 5));
+      req.write(encoded.substring(5));
+    }, 200, "OK", null);
+  }
+
+  @Test
+  public void testNdjsonBody() throws Exception {
+    router.route().handler(JsonStreamHandler.create());
+    router.route().handler(rc -> {
+      assertEquals(new JsonArray().add(new JsonObject().put("a", 1)).add(new JsonObject().put("a", 2)), rc.get(JsonStreamHandler.JSON_BODY));
+      rc.response().end();
+    });
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "application/x-ndjson");
+      req.write("{\"a\":1}\n{\"a\"");
+      req.write(":2}\n");
+    }, 200, "OK", null);
+  }
+
+  @Test
+  public void testStreamArrayElements() throws Exception {
+    router.route().handler(JsonStreamHandler.create(true));
+    router.route().handler(rc -> {
+      ReadStream<Object> elements = rc.get(JsonStreamHandler.JSON_ELEMENTS);
+      List<Object> received = new ArrayList<>();
+      elements
+        .endHandler(v -> rc.response().end(new JsonArray(received).encode()))
+        .handler(received::add);
+    });
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "application/json");
+      req.write("[{\"id\":1},");
+      req.write("[1,[2]],\"three\",4]");
+    }, 200, "OK", "[{\"id\":1},[1,[2]],\"three\",4]");
+  }
+
+  @Test
+  public void testStreamNdjsonElements() throws Exception {
+    router.route().handler(JsonStreamHandler.create(true));
+    router.route().handler(rc -> {
+      ReadStream<Object> elements = rc.get(JsonStreamHandler.JSON_ELEMENTS);
+      List<Object> received = new ArrayList<>();
+      elements
+        .endHandler(v -> rc.response().end(Integer.toString(received.size())))
+        .handler(received::add);
+    });
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "application/x-ndjson");
+      for (int i = 0; i < 1000; i++) {
+        req.write(new JsonObject().put("id", i).encode() + "\n");
+      }
+    }, 200, "OK", "1000");
+  }
+
+  @Test
+  public void testMalformedBody() throws Exception {
+    router.route().handler(JsonStreamHandler.create());
+    router.route().handler(rc -> fail("Should not be called"));
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "application/json");
+      req.write("{\"foo\":");
+      req.write("}");
+    }, 400, "Bad Request", null);
+  }
+
+  @Test
+  public void testBodyLimit() throws Exception {
+    router.route().handler(JsonStreamHandler.create().setBodyLimit(10));
+    router.route().handler(rc -> fail("Should not be called"));
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "application/json");
+      req.write("{\"foo\":\"0123456789\"}");
+    }, 413, "Request Entity Too Large", null);
+  }
+
+  @Test
+  public void testOtherContentType() throws Exception {
+    router.route().handler(JsonStreamHandler.create());
+    router.route().handler(BodyHandler.create());
+    router.route().handler(rc -> {
+      assertNull(rc.get(JsonStreamHandler.JSON_BODY));
+      rc.response().end(rc.getBodyAsString());
+    });
+    testRequest(HttpMethod.POST, "/", req -> {
+      req.setChunked(true);
+      req.putHeader("content-type", "text/plain");
+      req.write("{}");
+    }, 200, "OK", "{}");
+  }
+}
@@ -16,11 +16,19 @@
 
 package io.vertx.ext.web.handler;
 
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpClientRequest;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.Router;
 import io.vertx.ext.web.WebTestBase;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  *
@@ -30,6 +38,9 @@ import java.util.concurrent.CountDownLatch;
  */
 public class LoggerHandlerTest extends WebTestBase {
 
+  @Rule
+  public TemporaryFolder tempLogs = new TemporaryFolder();
+
   @Override
   public void setUp() throws Exception {
     super.setUp();
@@ -76,6 +87,78 @@ public class LoggerHandlerTest extends WebTestBase {
     latch.await();
   }
 
+  @Test
+  public void testLoggerFile() throws Exception {
+    File log = new File(tempLogs.getRoot(), "access.log");
+    LoggerHandler logger = LoggerHandler.create(LoggerFormat.TINY).logFile(log.getAbsolutePath());
+    testLogger(logger);
+    testRequest(HttpMethod.GET, "/otherdir", 200, "OK");
+    waitUntil(() -> vertx.fileSystem().existsBlocking(log.getAbsolutePath())
+      && vertx.fileSystem().readFileBlocking(log.getAbsolutePath()).toString().split("\n").length == 2);
+    String[] lines = vertx.fileSystem().readFileBlocking(log.getAbsolutePath()).toString().split("\n");
+    assertTrue(lines[0].startsWith("GET /somedir 200 0 - "));
+    assertTrue(lines[1].startsWith("GET /otherdir 200 0 - "));
+  }
+
+  @Test
+  public void testLoggerFileOpenRetried() throws Exception {
+    File dir = new File(tempLogs.getRoot(), "logs");
+    File log = new File(dir, "access.log");
+    LoggerHandler logger = LoggerHandler.create(LoggerFormat.TINY).logFile(log.getAbsolutePath());
+    // the directory does not exist yet, the file cannot be opened
+    testLogger(logger);
+    Thread.sleep(500);
+    assertFalse(log.exists());
+
+    assertTrue(dir.mkdir());
+    testRequest(HttpMethod.GET, "/otherdir", 200, "OK");
+    waitUntil(() -> vertx.fileSystem().existsBlocking(log.getAbsolutePath())
+      && vertx.fileSystem().readFileBlocking(log.getAbsolutePath()).length() > 0);
+    String[] lines = vertx.fileSystem().readFileBlocking(log.getAbsolutePath()).toString().split("\n");
+    assertEquals(1, lines.length);
+    assertTrue(lines[0].startsWith("GET /otherdir 200 0 - "));
+  }
+
+  @Test
+  public void testLoggerFileClosedOnUndeploy() throws Exception {
+    File log = new File(tempLogs.getRoot(), "access.log");
+    LoggerHandler logger = LoggerHandler.create(LoggerFormat.TINY).logFile(log.getAbsolutePath());
+    CountDownLatch deployed = new CountDownLatch(1);
+    AtomicReference<String> deploymentId = new AtomicReference<>();
+    vertx.deployVerticle(new AbstractVerticle() {
+      @Override
+      public void start(Promise<Void> startPromise) {
+        Router router = Router.router(vertx);
+        router.route().handler(logger);
+        router.route().handler(rc -> rc.response().end());
+        vertx.createHttpServer()
+          .requestHandler(router)
+          .listen(8081)
+          .<Void>mapEmpty()
+          .onComplete(startPromise);
+      }
+    }, onSuccess(id -> {
+      deploymentId.set(id);
+      deployed.countDown();
+    }));
+    awaitLatch(deployed);
+
+    CountDownLatch undeployed = new CountDownLatch(1);
+    client.request(HttpMethod.GET, 8081, "localhost", "/somedir")
+      .compose(HttpClientRequest::send)
+      .compose(resp -> {
+        assertEquals(200, resp.statusCode());
+        // the line is still in its batch, it is written when the file is closed
+        return vertx.undeploy(deploymentId.get());
+      })
+      .onComplete(onSuccess(v -> undeployed.countDown()));
+    awaitLatch(undeployed);
+
+    String[] lines = vertx.fileSystem().readFileBlocking(log.getAbsolutePath()).toString().split("\n");
+    assertEquals(1, lines.length);
+    assertTrue(lines[0].startsWith("GET /somedir 200 0 - "));
+  }
+
   private void testLogger(LoggerHandler logger) throws Exception {
     router.route().handler(logger);
     router.route().handler(rc -> rc.response().end());
@@ -27,14 +27,18 @@ import io.vertx.ext.web.Http2PushMapping;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.WebTestBase;
 import io.vertx.ext.web.impl.Utils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
@@ -46,6 +50,9 @@ public class StaticHandlerTest extends WebTestBase {
 
   protected StaticHandler stat;
 
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
   @Override
   public void setUp() throws Exception {
     super.setUp();
@@ -815,6 +822,71 @@ public class StaticHandlerTest extends WebTestBase {
     await();
   }
 
+  @Test
+  public void testSuffixRangeRequestBody() throws Exception {
+    stat.setEnableRangeSupport(true);
+    testRequest(HttpMethod.GET, "/somedir/range.jpg", req -> req.headers().set("Range", "bytes=-1000"), res -> res.bodyHandler(buff -> {
+      assertEquals("1000", res.headers().get("Content-Length"));
+      assertEquals("bytes 14783-15782/15783", res.headers().get("Content-Range"));
+      assertEquals(1000, buff.length());
+      testComplete();
+    }), 206, "Partial Content", null);
+    await();
+  }
+
+  @Test
+  public void testMultipleRangesRequestBody() throws Exception {
+    File root = testFolder.newFolder();
+    writeFile(new File(root, "file.bin"), "0123456789abcdefghij", System.currentTimeMillis() - 60_000);
+    router.clear();
+    router.route().handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath()).setEnableRangeSupport(true));
+
+    testRequest(HttpMethod.GET, "/file.bin", req -> req.headers().set("Range", "bytes=15-, 0-1, 1-2"), res -> res.bodyHandler(buff -> {
+      String contentType = res.headers().get("Content-Type");
+      assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+      String boundary = contentType.substring(contentType.indexOf('=') + 1);
+      assertNull(res.headers().get("Content-Range"));
+      assertEquals(Integer.toString(buff.length()), res.headers().get("Content-Length"));
+
+      String body = buff.toString();
+      // overlapping ranges are coalesced and sorted
+      assertTrue(body.startsWith("--" + boundary + "\r\n"));
+      assertTrue(body.contains("Content-Range: bytes 0-2/20\r\n\r\n012\r\n--" + boundary + "\r\n"));
+      assertTrue(body.contains("Content-Range: bytes 15-19/20\r\n\r\nfghij\r\n--" + boundary + "--\r\n"));
+      assertTrue(body.endsWith("--" + boundary + "--\r\n"));
+      testComplete();
+    }), 206, "Partial Content", null);
+    await();
+  }
+
+  @Test
+  public void testIfRange() throws Exception {
+    File root = testFolder.newFolder();
+    long lastModified = System.currentTimeMillis() - 60_000;
+    writeFile(new File(root, "file.bin"), "0123456789abcdefghij", lastModified);
+    router.clear();
+    router.route().handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath())
+      .setEnableRangeSupport(true)
+      .setETagMode(ETagMode.STRONG));
+
+    // ranges require the strong tag
+    AtomicReference<String> etag = new AtomicReference<>(awaitStrongETag("/file.bin"));
+
+    testRequest(HttpMethod.GET, "/file.bin", req -> req
+      .putHeader("Range", "bytes=0-1")
+      .putHeader("If-Range", etag.get()), 206, "Partial Content", "01");
+    testRequest(HttpMethod.GET, "/file.bin", req -> req
+      .putHeader("Range", "bytes=0-1")
+      .putHeader("If-Range", Utils.formatRFC1123DateTime(lastModified)), 206, "Partial Content", "01");
+    // the representation changed, the whole file is sent
+    testRequest(HttpMethod.GET, "/file.bin", req -> req
+      .putHeader("Range", "bytes=0-1")
+      .putHeader("If-Range", "\"other\""), 200, "OK", "0123456789abcdefghij");
+    testRequest(HttpMethod.GET, "/file.bin", req -> req
+      .putHeader("Range", "bytes=0-1")
+      .putHeader("If-Range", Utils.formatRFC1123DateTime(lastModified - 10_000)), 200, "OK", "0123456789abcdefghij");
+  }
+
   @Test
   public void testContentTypeSupport() throws Exception {
     testRequest(HttpMethod.GET, "/somedir/range.jpg", req -> {
@@ -963,6 +1035,269 @@ public class StaticHandlerTest extends WebTestBase {
     return new File(filename).length();
   }
 
+  @Test
+  public void testPrecompressedAssets() throws Exception {
+    File root = testFolder.newFolder();
+    long lastModified = System.currentTimeMillis() - 60_000;
+    writeFile(new File(root, "app.js"), "plain", lastModified);
+    writeFile(new File(root, "app.js.br"), "brotli", lastModified);
+    writeFile(new File(root, "app.js.gz"), "gzip", lastModified);
+    writeFile(new File(root, "stale.js"), "plain", lastModified);
+    writeFile(new File(root, "stale.js.gz"), "gzip", lastModified - 10_000);
+
+    router.clear();
+    router.route().handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath()).setPrecompressedAssets(true));
+
+    testRequest(HttpMethod.GET, "/app.js", req -> req.putHeader("accept-encoding", "gzip, br"), res -> {
+      assertEquals("br", res.getHeader("content-encoding"));
+      assertEquals("accept-encoding", res.getHeader("vary"));
+      assertEquals("6", res.getHeader("content-length"));
+    }, 200, "OK", "brotli");
+    testRequest(HttpMethod.GET, "/app.js", req -> req.putHeader("accept-encoding", "gzip, br;q=0.5"), res -> {
+      assertEquals("gzip", res.getHeader("content-encoding"));
+    }, 200, "OK", "gzip");
+    testRequest(HttpMethod.GET, "/app.js", req -> req.putHeader("accept-encoding", "br;q=0, *"), res -> {
+      assertEquals("gzip", res.getHeader("content-encoding"));
+    }, 200, "OK", "gzip");
+    testRequest(HttpMethod.GET, "/app.js", null, res -> {
+      assertNull(res.getHeader("content-encoding"));
+      assertEquals("accept-encoding", res.getHeader("vary"));
+    }, 200, "OK", "plain");
+    // ranges are served from the requested file
+    testRequest(HttpMethod.GET, "/app.js", req -> req.putHeader("accept-encoding", "gzip").putHeader("range", "bytes=0-1"), res -> {
+      assertNull(res.getHeader("content-encoding"));
+    }, 206, "Partial Content", "pl");
+    // a variant older than the file is not used
+    testRequest(HttpMethod.GET, "/stale.js", req -> req.putHeader("accept-encoding", "gzip"), res -> {
+      assertNull(res.getHeader("content-encoding"));
+    }, 200, "OK", "plain");
+  }
+
+  @Test
+  public void testPrecompressedAssetsVaryAfterCors() throws Exception {
+    File root = testFolder.newFolder();
+    long lastModified = System.currentTimeMillis() - 60_000;
+    writeFile(new File(root, "app.js"), "plain", lastModified);
+    writeFile(new File(root, "app.js.br"), "brotli", lastModified);
+
+    router.clear();
+    // sets vary: origin before the static handler
+    router.route().handler(CorsHandler.create("http://vertx\\.io"));
+    router.route().handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath()).setPrecompressedAssets(true));
+
+    testRequest(HttpMethod.GET, "/app.js", req -> req.putHeader("accept-encoding", "br"), res -> {
+      assertEquals("br", res.getHeader("content-encoding"));
+      assertEquals("origin,accept-encoding", res.getHeader("vary"));
+    }, 200, "OK", "brotli");
+  }
+
+  @Test
+  public void testContentCache() throws Exception {
+    File root = testFolder.newFolder();
+    File file = new File(root, "page.html");
+    long lastModified = System.currentTimeMillis() - 60_000;
+    writeFile(file, "<p>first</p>", lastModified);
+    writeFile(new File(root, "large.html"), "<p>large page</p>", lastModified);
+
+    router.clear();
+    router.route().handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath())
+      .setFilesReadOnly(false)
+      .setCacheEntryTimeout(1)
+      .setMaxContentCacheSize(1024)
+      .setMaxCachedFileSize(16));
+
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "<p>first</p>");
+    // same size and last modified time, the cached content is sent
+    writeFile(file, "<p>FIRST</p>", lastModified);
+    Thread.sleep(10);
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "<p>first</p>");
+    // a modified file is read again
+    writeFile(file, "<p>second</p>", lastModified + 1000);
+    Thread.sleep(10);
+    testRequest(HttpMethod.GET, "/page.html", 200, "OK", "<p>second</p>");
+    // files larger than the limit are not cached
+    testRequest(HttpMethod.GET, "/large.html", 200, "OK", "<p>large page</p>");
+    writeFile(new File(root, "large.html"), "<p>LARGE PAGE</p>", lastModified);
+    Thread.sleep(10);
+    testRequest(HttpMethod.GET, "/large.html", 200, "OK", "<p>LARGE PAGE</p>");
+  }
+
+  @Test
+  public void testContentCacheStaleProps() throws Exception {
+    File root = testFolder.newFolder();
+    File file = new File(root, "page.html");
+    long lastModified = System.currentTimeMillis() - 60_000;
+    writeFile(file, "<p>first</p>", lastModified);
+
+    router.clear();
+    router.route().handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath())
+      .setFilesReadOnly(true)
+      .setMaxContentCacheSize(1024)
+      .setMaxCachedFileSize(64));
+
+    // the properties are cached without reading the content
+    testRequest(HttpMethod.HEAD, "/page.html", null, res -> assertEquals("12", res.getHeader("content-length")), 200, "OK", null);
+    writeFile(file, "<p>second page</p>", lastModified);
+    // the content does not match the cached properties, the file is sent as it is now
+    testRequest(HttpMethod.GET, "/page.html", null, res -> assertEquals("18", res.getHeader("content-length")), 200, "OK", "<p>second page</p>");
+  }
+
+  @Test
+  public void testWeakETag() throws Exception {
+    stat.setETagMode(ETagMode.WEAK);
+    AtomicReference<String> etag = new AtomicReference<>();
+    testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+      etag.set(res.getHeader("etag"));
+      assertNotNull(etag.get());
+      assertTrue(etag.get().startsWith("W/\""));
+    }, 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req.putHeader("if-none-match", etag.get()), null, 304, "Not Modified", null);
+    // if-modified-since is ignored when if-none-match is present
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req
+      .putHeader("if-none-match", "\"other\", " + etag.get())
+      .putHeader("if-modified-since", Utils.formatRFC1123DateTime(0)), null, 304, "Not Modified", null);
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req.putHeader("if-none-match", "\"other\""), 200, "OK", "<html><body>Other page</body></html>");
+    // weak tags never satisfy if-match
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req.putHeader("if-match", etag.get()), 412, "Precondition Failed", null);
+  }
+
+  @Test
+  public void testStrongETag() throws Exception {
+    stat.setCachingEnabled(true).setETagMode(ETagMode.STRONG);
+    // the file is hashed in the background, the weak tag is sent meanwhile
+    testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+      assertNotNull(res.getHeader("etag"));
+      assertTrue(res.getHeader("etag").startsWith("W/\""));
+    }, 200, "OK", "<html><body>Other page</body></html>");
+    AtomicReference<String> etag = new AtomicReference<>(awaitStrongETag("/otherpage.html"));
+    // the tag only depends on the content
+    assertEquals(etag.get(), awaitStrongETag("/somedir2/somepage.html"));
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req.putHeader("if-none-match", etag.get()), null, 304, "Not Modified", null);
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req.putHeader("if-match", etag.get()), 200, "OK", "<html><body>Other page</body></html>");
+    testRequest(HttpMethod.GET, "/otherpage.html", req -> req.putHeader("if-match", "\"other\""), 412, "Precondition Failed", null);
+  }
+
+  private String awaitStrongETag(String uri) throws Exception {
+    long deadline = System.currentTimeMillis() + 10_000;
+    AtomicReference<String> etag = new AtomicReference<>();
+    do {
+      assertTrue("No strong etag for " + uri, System.currentTimeMillis() < deadline);
+      testRequest(HttpMethod.GET, uri, null, res -> etag.set(res.getHeader("etag")), 200, "OK", null);
+    } while (etag.get() == null || etag.get().startsWith("W/"));
+    return etag.get();
+  }
+
+  @Test
+  public void testStrongETagWithoutCache() throws Exception {
+    stat.setCachingEnabled(false).setETagMode(ETagMode.STRONG);
+    // the tag cannot be kept, the file is not hashed on every request
+    testRequest(HttpMethod.GET, "/otherpage.html", null, res -> {
+      assertNotNull(res.getHeader("etag"));
+      assertTrue(res.getHeader("etag").startsWith("W/\""));
+    }, 200, "OK", "<html><body>Other page</body></html>");
+  }
+
+  @Test
+  public void testWatchWebRoot() throws Exception {
+    File root = testFolder.newFolder();
+    File file = new File(root, "page.html");
+    long lastModified = System.currentTimeMillis() - 60_000;
+    writeFile(file, "first", lastModified);
+
+    router.clear();
+    router.route().handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath())
+      .setFilesReadOnly(true)
+      .setWatchWebRoot(true));
+
+    assertEquals("200 first", get("/page.html"));
+    assertTrue(get("/other.html").startsWith("404 "));
+
+    // read only files are cached for ever, only the watcher can invalidate them
+    writeFile(file, "second", lastModified + 1000);
+    writeFile(new File(root, "other.html"), "other", lastModified);
+    awaitBody("/page.html", "200 second");
+    awaitBody("/other.html", "200 other");
+  }
+
+  @Test
+  public void testWatchWebRootSharedAndClosed() throws Exception {
+    File root = testFolder.newFolder();
+    writeFile(new File(root, "page.html"), "first", System.currentTimeMillis() - 60_000);
+    String threadName = "vertx-web-root-watcher " + root.toPath().toAbsolutePath().normalize();
+
+    CompletableFuture<String> deployment = new CompletableFuture<>();
+    vertx.deployVerticle(new AbstractVerticle() {
+      @Override
+      public void start(Promise<Void> startPromise) {
+        Router router = Router.router(vertx);
+        router.route("/a/*").handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath()).setWatchWebRoot(true));
+        router.route("/b/*").handler(StaticHandler.create(FileSystemAccess.ROOT, root.getAbsolutePath()).setWatchWebRoot(true));
+        vertx.createHttpServer()
+          .requestHandler(router)
+          .listen(8081)
+          .<Void>mapEmpty()
+          .onComplete(startPromise);
+      }
+    }).onComplete(ar -> {
+      if (ar.succeeded()) {
+        deployment.complete(ar.result());
+      } else {
+        deployment.completeExceptionally(ar.cause());
+      }
+    });
+    String deploymentId = deployment.get(10, TimeUnit.SECONDS);
+
+    assertEquals("200 first", get(8081, "/a/page.html"));
+    assertEquals("200 first", get(8081, "/b/page.html"));
+    // the watcher is started in the background, both handlers share it
+    waitUntil(() -> watcherThreads(threadName) > 0);
+    Thread.sleep(100);
+    assertEquals(1, watcherThreads(threadName));
+
+    CountDownLatch undeployed = new CountDownLatch(1);
+    vertx.undeploy(deploymentId, onSuccess(v -> undeployed.countDown()));
+    awaitLatch(undeployed);
+    waitUntil(() -> watcherThreads(threadName) == 0);
+  }
+
+  private static long watcherThreads(String name) {
+    return Thread.getAllStackTraces().keySet().stream()
+      .filter(thread -> thread.isAlive() && name.equals(thread.getName()))
+      .count();
+  }
+
+  private void awaitBody(String uri, String expected) throws Exception {
+    long deadline = System.currentTimeMillis() + 20_000;
+    String body;
+    while (!expected.equals(body = get(uri))) {
+      assertTrue("Expected " + expected + " but was " + body, System.currentTimeMillis() < deadline);
+      Thread.sleep(50);
+    }
+  }
+
+  private String get(String uri) throws Exception {
+    return get(8080, uri);
+  }
+
+  private String get(int port, String uri) throws Exception {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    client.request(HttpMethod.GET, port, "localhost", uri)
+      .compose(req -> req.send().compose(resp -> resp.body().map(body -> resp.statusCode() + " " + body)))
+      .onComplete(ar -> {
+        if (ar.succeeded()) {
+          result.complete(ar.result());
+        } else {
+          result.completeExceptionally(ar.cause());
+        }
+      });
+    return result.get(10, TimeUnit.SECONDS);
+  }
+
+  private static void writeFile(File file, String content, long lastModified) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    assertTrue(file.setLastModified(lastModified));
+  }
+
   @Test
   public void testSubRouterBeforeStaticHandler() throws Exception {
     Router subRouter = Router.router(vertx);
@@ -45,4 +45,30 @@ public class HeaderParserTest {
     assertEquals(3, headers.size());
   }
 
+  @Test
+  public void testParameters() {
+    ParsableHeaderValue header = new ParsableHeaderValue("text/plain; Q=0.5 ;charset=utf-8; flowed ;quality=\"high\"").forceParse();
+
+    assertEquals("text/plain", header.value());
+    assertEquals(0.5f, header.weight(), 0.0f);
+    assertEquals("utf-8", header.parameter("charset"));
+    assertEquals("", header.parameter("flowed"));
+    assertEquals("high", header.parameter("quality"));
+    assertFalse(header.parameters().containsKey("Q"));
+  }
+
+  @Test
+  public void testParsedHeaderCacheIsBounded() {
+    ParsedHeaderCache<List<ParsedHeaderValue>> cache =
+      new ParsedHeaderCache<>(2, header -> HeaderParser.convertToParsedHeaderValues(header, ParsableHeaderValue::new));
+
+    List<ParsedHeaderValue> gzip = cache.get("gzip, br");
+    assertSame(gzip, cache.get("gzip, br"));
+    cache.get("deflate");
+    assertEquals(2, cache.size());
+    // a new value does not grow the cache nor evict the frequent value
+    cache.get("identity");
+    assertEquals(2, cache.size());
+    assertSame(gzip, cache.get("gzip, br"));
+  }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.Router;
+import org.junit.Test;
+
+import java.util.regex.Matcher;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class PathTemplateTest {
+
+  private static final String[] PATHS = {
+    "/", "/users", "/users/", "/users/1", "/users/1/", "/users/1//", "/users//orders", "/users/1/orders",
+    "/users/1/orders/", "/users/1/orders/2", "/users/1/orders/2/", "/users/1/orders/2/items", "/users/a.b/orders/c+d",
+    "/users/1/ordersx/2", "/v1.0/users/1", "/v1x0/users/1", "/files/a/b/c.txt", "/files/", "/files", "/usersx/1"
+  };
+
+  private final Router router = Router.router(mock(Vertx.class));
+
+  @Test
+  public void testCompiled() {
+    assertTemplate("/users/:id");
+    assertTemplate("/users/:id/");
+    assertTemplate("/users/:id/orders/:orderId");
+    assertTemplate("/users/:id/orders/:orderId/");
+    assertTemplate("/users/:id/*");
+    assertTemplate("/users/:id*");
+    assertTemplate("/users/:id/orders*");
+    assertTemplate("/v1.0/users/:id");
+    assertTemplate("/files/:name/*");
+    assertTemplate("/:a/:b/:c");
+  }
+
+  @Test
+  public void testNotCompiled() {
+    // parameters followed by literals would need backtracking
+    assertNull(state("/users/:id.json").getTemplate());
+    assertNull(state("/users/:from-:to").getTemplate());
+    // regex operators are kept as they are in the pattern
+    assertNull(state("/users/:id/[a-z]+").getTemplate());
+    assertNull(state("/users?/:id").getTemplate());
+    // routes declared with regex
+    assertNull(((RouteImpl) router.routeWithRegex("/users/(?<id>[^/]+)")).state().getTemplate());
+  }
+
+  @Test
+  public void testPatternReplaced() {
+    RouteImpl route = (RouteImpl) router.route("/users/:id");
+    assertNotNull(route.state().getTemplate());
+    route.setRegexGroupsNames(java.util.Collections.singletonList("user"));
+    assertNull(route.state().getTemplate());
+  }
+
+  private RouteState state(String path) {
+    return ((RouteImpl) router.route(path)).state();
+  }
+
+  private void assertTemplate(String path) {
+    RouteState state = state(path);
+    PathTemplate template = state.getTemplate();
+    assertNotNull(path, template);
+    assertEquals(state.getGroups().size(), template.params());
+
+    for (String requestPath : PATHS) {
+      Matcher m = state.getPattern().matcher(requestPath);
+      int rest = template.match(requestPath);
+      assertEquals(path + " ~ " + requestPath, m.matches(), rest != -1);
+      if (rest != -1) {
+        if (!state.isExactPath()) {
+          assertEquals(path + " ~ " + requestPath, m.start("rest"), rest);
+        }
+        String[] values = template.values(requestPath);
+        for (int i = 0; i < values.length; i++) {
+          assertEquals(path + " ~ " + requestPath, m.group("p" + i), values[i]);
+        }
+      }
+    }
+  }
+}
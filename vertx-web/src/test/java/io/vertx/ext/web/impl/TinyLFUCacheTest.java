@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TinyLFUCacheTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new TinyLFUCache<>(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidExpiration() {
+    new TinyLFUCache<>(10, -1);
+  }
+
+  @Test
+  public void testPutGetRemove() {
+    TinyLFUCache<String, String> cache = new TinyLFUCache<>(10);
+    assertNull(cache.get("foo"));
+    cache.put("foo", "bar");
+    assertEquals("bar", cache.get("foo"));
+    cache.put("foo", "baz");
+    assertEquals("baz", cache.get("foo"));
+    assertEquals(1, cache.size());
+    assertEquals("baz", cache.remove("foo"));
+    assertNull(cache.get("foo"));
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.hits());
+    assertEquals(2, cache.misses());
+  }
+
+  @Test
+  public void testBounded() {
+    TinyLFUCache<Integer, Integer> cache = new TinyLFUCache<>(100);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, i);
+      assertTrue(cache.size() <= 100);
+    }
+    assertEquals(1000 - cache.size(), cache.evictions());
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testFrequentEntriesSurviveScan() {
+    TinyLFUCache<String, String> cache = new TinyLFUCache<>(1000);
+    for (int i = 0; i < 10; i++) {
+      cache.put("hot" + i, "value");
+    }
+    for (int j = 0; j < 15; j++) {
+      for (int i = 0; i < 10; i++) {
+        assertNotNull(cache.get("hot" + i));
+      }
+    }
+    // a burst of one off keys
+    for (int i = 0; i < 1000; i++) {
+      cache.put("scan" + i, "value");
+    }
+    for (int i = 0; i < 10; i++) {
+      assertNotNull(cache.get("hot" + i));
+    }
+  }
+
+  @Test
+  public void testExpireAfterWrite() throws Exception {
+    TinyLFUCache<String, String> cache = new TinyLFUCache<>(10, 1);
+    cache.put("foo", "bar");
+    Thread.sleep(10);
+    assertNull(cache.get("foo"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testFrequencySketch() {
+    TinyLFUCache.FrequencySketch sketch = new TinyLFUCache.FrequencySketch(64);
+    assertEquals(0, sketch.frequency(42));
+    for (int i = 0; i < 20; i++) {
+      sketch.increment(42);
+    }
+    // counters saturate
+    assertEquals(15, sketch.frequency(42));
+    // popularity is halved after a sample
+    for (int i = 0; i < 700; i++) {
+      sketch.increment(i * 31 + 1000);
+    }
+    assertTrue(sketch.frequency(42) < 15);
+  }
+}
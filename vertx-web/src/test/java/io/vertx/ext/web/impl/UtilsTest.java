@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.impl;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.*;
+
+public class UtilsTest {
+
+  private static String format(long time) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(time).atZone(ZoneId.of("GMT")));
+  }
+
+  @Test
+  public void testFormatRFC1123DateTime() {
+    final long now = System.currentTimeMillis();
+    final long lastModified = 1_000_000_000_123L;
+
+    for (long time : new long[] { now, now + 1000, lastModified, lastModified + 999, lastModified + 1000, 0, -1, now }) {
+      assertEquals(format(time), Utils.formatRFC1123DateTime(time));
+    }
+    // the same second reuses the formatted value
+    assertSame(Utils.formatRFC1123DateTime(lastModified), Utils.formatRFC1123DateTime(lastModified - 123));
+  }
+
+  @Test
+  public void testParseRFC1123DateTime() {
+    final long time = 1_000_000_000_000L;
+    assertEquals(time, Utils.parseRFC1123DateTime(Utils.formatRFC1123DateTime(time)));
+    assertEquals(-1, Utils.parseRFC1123DateTime("yesterday"));
+    assertEquals(-1, Utils.parseRFC1123DateTime(null));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore;
+
+import io.vertx.ext.web.Session;
+import io.vertx.ext.web.handler.SessionHandlerTestBase;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NearCacheSessionHandlerTest extends SessionHandlerTestBase {
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    store = NearCacheSessionStore.create(vertx, LocalSessionStore.create(vertx));
+  }
+
+  @Test
+  public void testRetryTimeout() throws Exception {
+    assertTrue(doTestSessionRetryTimeout() < 3000);
+  }
+
+  @Test
+  public void testCachedCopy() {
+    Session session = store.createSession(30_000);
+    session.put("foo", "bar");
+    store.put(session, onSuccess(put -> {
+      // the application modifies its session without storing it
+      session.put("foo", "baz");
+      store.get(session.id(), onSuccess(cached -> {
+        assertNotSame(session, cached);
+        assertEquals("bar", cached.get("foo"));
+        testComplete();
+      }));
+    }));
+    await();
+  }
+
+  @Test
+  public void testUnchangedSessionNotPublished() throws Exception {
+    AtomicInteger published = new AtomicInteger();
+    vertx.eventBus().consumer(NearCacheSessionStore.DEFAULT_INVALIDATION_ADDRESS, message -> published.incrementAndGet());
+
+    Session session = store.createSession(30_000);
+    session.put("foo", "bar");
+    CountDownLatch written = new CountDownLatch(1);
+    store.put(session)
+      // the session is used again without being modified
+      .compose(v -> store.get(session.id()))
+      .compose(store::put)
+      .onComplete(onSuccess(v -> written.countDown()));
+    awaitLatch(written);
+
+    waitUntil(() -> published.get() == 1);
+    Thread.sleep(100);
+    assertEquals(1, published.get());
+  }
+
+  @Test
+  public void testNodeInvalidation() throws Exception {
+    SessionStore delegate = LocalSessionStore.create(vertx);
+    SessionStore node1 = NearCacheSessionStore.create(vertx, delegate);
+    SessionStore node2 = NearCacheSessionStore.create(vertx, delegate);
+
+    Session session = node1.createSession(30_000);
+    session.put("foo", "bar");
+    CountDownLatch written = new CountDownLatch(1);
+    node1.put(session)
+      // both nodes have a copy
+      .compose(v -> node2.get(session.id()))
+      .compose(copy -> {
+        copy.put("foo", "baz");
+        return node1.get(session.id())
+          .compose(v -> node2.put(copy));
+      })
+      .onComplete(onSuccess(v -> written.countDown()));
+    awaitLatch(written);
+
+    // node1 is notified of the write of node2
+    waitUntil(() -> {
+      Session read = node1.get(session.id()).result();
+      return read != null && "baz".equals(read.get("foo"));
+    });
+  }
+}
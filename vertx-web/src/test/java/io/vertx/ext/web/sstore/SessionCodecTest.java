@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022 Red Hat, Inc.
+ *
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  and Apache License v2.0 which accompanies this distribution.
+ *
+ *  The Eclipse Public License is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  The Apache License v2.0 is available at
+ *  http://www.opensource.org/licenses/apache2.0.php
+ *
+ *  You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.ext.web.sstore;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.impl.ClusterSerializable;
+import io.vertx.ext.web.sstore.impl.BinarySessionCodec;
+import io.vertx.ext.web.sstore.impl.SharedDataSessionImpl;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SessionCodecTest {
+
+  @Test
+  public void testRoundTrip() {
+    SessionCodec codec = new BinarySessionCodec()
+      .register(16, Cart.class, Cart::new);
+
+    Map<String, Object> data = new HashMap<>();
+    data.put("long", -123456789012L);
+    data.put("int", -1);
+    data.put("short", (short) 123);
+    data.put("byte", (byte) 12);
+    data.put("double", 123.456d);
+    data.put("float", 123.456f);
+    data.put("char", 'X');
+    data.put("boolean", true);
+    data.put("string", "wibble");
+    data.put("bytes", new byte[] { 1, 2, 3 });
+    data.put("buffer", Buffer.buffer("buffer"));
+    data.put("json", new JsonObject().put("foo", "bar"));
+    data.put("cart", new Cart(3));
+
+    Buffer buffer = Buffer.buffer();
+    codec.encode(data, buffer);
+    Map<String, Object> decoded = new HashMap<>();
+    assertEquals(buffer.length(), codec.decode(0, buffer, decoded));
+
+    assertEquals(-123456789012L, decoded.get("long"));
+    assertEquals(-1, decoded.get("int"));
+    assertEquals((short) 123, decoded.get("short"));
+    assertEquals((byte) 12, decoded.get("byte"));
+    assertEquals(123.456d, decoded.get("double"));
+    assertEquals(123.456f, decoded.get("float"));
+    assertEquals('X', decoded.get("char"));
+    assertEquals(true, decoded.get("boolean"));
+    assertEquals("wibble", decoded.get("string"));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) decoded.get("bytes"));
+    assertEquals(Buffer.buffer("buffer"), decoded.get("buffer"));
+    assertEquals(new JsonObject().put("foo", "bar"), decoded.get("json"));
+    assertEquals(3, ((Cart) decoded.get("cart")).items);
+    // registered classes are written as ids
+    assertFalse(buffer.toString(StandardCharsets.ISO_8859_1).contains(Cart.class.getName()));
+  }
+
+  @Test
+  public void testCompression() {
+    SessionCodec codec = new BinarySessionCodec();
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      value.append("item-").append(i % 10).append(',');
+    }
+    Map<String, Object> data = new HashMap<>();
+    data.put("cart", value.toString());
+
+    Buffer buffer = Buffer.buffer();
+    codec.encode(data, buffer);
+    assertTrue(buffer.length() < value.length() / 2);
+
+    Map<String, Object> decoded = new HashMap<>();
+    assertEquals(buffer.length(), codec.decode(0, buffer, decoded));
+    assertEquals(value.toString(), decoded.get("cart"));
+
+    codec = new BinarySessionCodec().setCompressionThreshold(0);
+    buffer = Buffer.buffer();
+    codec.encode(data, buffer);
+    assertTrue(buffer.length() > value.length());
+  }
+
+  @Test
+  public void testSingleValue() {
+    SessionCodec codec = new BinarySessionCodec();
+    assertEquals(Long.MIN_VALUE, codec.decodeValue(codec.encodeValue(Long.MIN_VALUE)));
+    assertEquals(Integer.MAX_VALUE, codec.decodeValue(codec.encodeValue(Integer.MAX_VALUE)));
+    assertEquals("value", codec.decodeValue(codec.encodeValue("value")));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testIdAlreadyRegistered() {
+    new BinarySessionCodec().register(1, Cart.class, Cart::new);
+  }
+
+  @Test
+  public void testFrozenOnceUsed() {
+    SessionCodec codec = new BinarySessionCodec();
+    codec.encodeValue("value");
+    try {
+      codec.register(16, Cart.class, Cart::new);
+      fail();
+    } catch (IllegalStateException ignore) {
+      // expected
+    }
+    try {
+      codec.setCompressionThreshold(0);
+      fail();
+    } catch (IllegalStateException ignore) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testReadLegacySession() {
+    byte[] id = "abcd".getBytes(StandardCharsets.UTF_8);
+    byte[] key = "foo".getBytes(StandardCharsets.UTF_8);
+    byte[] value = "bar".getBytes(StandardCharsets.UTF_8);
+    Buffer buffer = Buffer.buffer()
+      .appendInt(id.length).appendBytes(id)
+      .appendLong(30_000)
+      .appendLong(1234)
+      .appendInt(2)
+      // one string entry
+      .appendInt(1)
+      .appendInt(key.length).appendBytes(key)
+      .appendByte((byte) 9).appendInt(value.length).appendBytes(value);
+
+    SharedDataSessionImpl session = new SharedDataSessionImpl();
+    assertEquals(buffer.length(), session.readFromBuffer(0, buffer));
+    assertEquals("abcd", session.id());
+    assertEquals(30_000, session.timeout());
+    assertEquals(1234, session.lastAccessed());
+    assertEquals(2, session.version());
+    assertEquals("bar", session.get("foo"));
+  }
+
+  public static class Cart implements ClusterSerializable {
+
+    private int items;
+
+    public Cart() {
+    }
+
+    Cart(int items) {
+      this.items = items;
+    }
+
+    @Override
+    public void writeToBuffer(Buffer buffer) {
+      buffer.appendInt(items);
+    }
+
+    @Override
+    public int readFromBuffer(int pos, Buffer buffer) {
+      items = buffer.getInt(pos);
+      return pos + 4;
+    }
+  }
+}